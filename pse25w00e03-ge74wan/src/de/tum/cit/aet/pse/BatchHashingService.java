@@ -0,0 +1,191 @@
+package de.tum.cit.aet.pse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Hashes many files in parallel on a work-stealing pool of a bounded size.
+ * <p>
+ * The results are passed to a consumer as soon as a file is hashed, one
+ * result at a time, so the consumer does not need to be thread-safe. Within
+ * one call every file is hashed once, even if it is passed several times. A
+ * file counts as the same as long as its path, size and modification time
+ * are the same.
+ */
+public final class BatchHashingService implements AutoCloseable {
+
+	private final Hashing hashing;
+	private final ForkJoinPool pool;
+
+	public BatchHashingService(Hashing hashing) {
+		this(hashing, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param hashing     the hashing to hash every file with
+	 * @param parallelism how many files are hashed at the same time at most
+	 */
+	public BatchHashingService(Hashing hashing, int parallelism) {
+		this.hashing = hashing;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Hashes all regular files in the directory and its subdirectories. The
+	 * first files are hashed while the directory is still being walked.
+	 *
+	 * @throws IOException if the directory cannot be walked
+	 */
+	public void hashDirectory(Path directory, Consumer<HashResult> consumer) throws IOException {
+		Batch batch = new Batch(consumer);
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.filter(Files::isRegularFile).forEach(batch::submit);
+		} catch (UncheckedIOException e) {
+			batch.await();
+			throw e.getCause();
+		}
+		batch.await();
+	}
+
+	/**
+	 * Hashes the files and returns when all of them are hashed. A file that
+	 * cannot be read or hashed is passed to the consumer as a failed result.
+	 */
+	public void hashFiles(Collection<Path> files, Consumer<HashResult> consumer) {
+		Batch batch = new Batch(consumer);
+		files.forEach(batch::submit);
+		batch.await();
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * The files of one call, with the identities of the files already hashed.
+	 */
+	private final class Batch {
+
+		private final Consumer<HashResult> consumer;
+		private final Set<FileIdentity> hashedFiles = ConcurrentHashMap.newKeySet();
+		private final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+		private Batch(Consumer<HashResult> consumer) {
+			this.consumer = consumer;
+		}
+
+		private void submit(Path file) {
+			tasks.add(pool.submit(() -> hash(file)));
+		}
+
+		private void hash(Path file) {
+			Path path = file.toAbsolutePath().normalize();
+			HashResult result;
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				if (!hashedFiles.add(new FileIdentity(path, attributes.size(), attributes.lastModifiedTime()))) {
+					return;
+				}
+				result = new HashResult(path, hashing.hashDocument(path), null);
+			} catch (IOException | RuntimeException e) {
+				result = new HashResult(path, null, e);
+			}
+			synchronized (this) {
+				consumer.accept(result);
+			}
+		}
+
+		private void await() {
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * The hash of one file, or the reason why it could not be hashed.
+	 */
+	public static final class HashResult {
+
+		private final Path path;
+		private final String hash;
+		private final Exception failure;
+
+		private HashResult(Path path, String hash, Exception failure) {
+			this.path = path;
+			this.hash = hash;
+			this.failure = failure;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @return the hash of the file, or null if it could not be hashed
+		 */
+		public String getHash() {
+			return hash;
+		}
+
+		/**
+		 * @return why the file could not be hashed, or null if it was hashed
+		 */
+		public Exception getFailure() {
+			return failure;
+		}
+
+		public boolean isSuccessful() {
+			return failure == null;
+		}
+
+		@Override
+		public String toString() {
+			return path + ": " + (isSuccessful() ? hash : failure);
+		}
+	}
+
+	private static final class FileIdentity {
+
+		private final Path path;
+		private final long size;
+		private final FileTime lastModifiedTime;
+
+		private FileIdentity(Path path, long size, FileTime lastModifiedTime) {
+			this.path = path;
+			this.size = size;
+			this.lastModifiedTime = lastModifiedTime;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof FileIdentity other)) {
+				return false;
+			}
+			return size == other.size && path.equals(other.path) && lastModifiedTime.equals(other.lastModifiedTime);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, size, lastModifiedTime);
+		}
+	}
+}
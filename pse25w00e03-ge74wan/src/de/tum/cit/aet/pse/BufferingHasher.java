@@ -0,0 +1,41 @@
+package de.tum.cit.aet.pse;
+
+import java.io.Serializable;
+
+/**
+ * A hasher for hash functions that cannot resume. It keeps all chars, so its
+ * memory grows with the document, and every snapshot hashes the whole
+ * document again in O(n). The hash function must be serializable, as the
+ * hasher is.
+ */
+final class BufferingHasher implements Hasher {
+
+	private static final long serialVersionUID = 1L;
+
+	// checked to be serializable in the constructor
+	@SuppressWarnings("serial")
+	private final HashFunction hashFunction;
+	private final StringBuilder document = new StringBuilder();
+
+	BufferingHasher(HashFunction hashFunction) {
+		if (!(hashFunction instanceof Serializable)) {
+			throw new IllegalArgumentException(hashFunction.getClass().getName() + " is not serializable");
+		}
+		this.hashFunction = hashFunction;
+	}
+
+	@Override
+	public void update(char[] chars, int from, int to) {
+		document.append(chars, from, to - from);
+	}
+
+	@Override
+	public void update(String chars) {
+		document.append(chars);
+	}
+
+	@Override
+	public String snapshot() {
+		return hashFunction.calculateHashCode(document.toString());
+	}
+}
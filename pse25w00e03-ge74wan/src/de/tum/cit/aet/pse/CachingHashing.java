@@ -0,0 +1,278 @@
+package de.tum.cit.aet.pse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Hashing} that remembers the hash codes another hashing calculated.
+ * <p>
+ * Files are identified by their path, size, modification time and, where
+ * the file system has one, their file key (the inode on Unix), so a changed
+ * file is hashed again. A file that was modified in the last seconds is not
+ * cached, because a second change within the resolution of the modification
+ * time would not be noticed. Documents passed as a String are cached by their
+ * content if they are short. Channels and streams are never cached.
+ * <p>
+ * The cache holds a bounded number of entries and evicts the least recently
+ * used one. The file entries can be saved to disk and loaded again, so hash
+ * codes survive a restart as long as the files do not change.
+ */
+public class CachingHashing extends Hashing {
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+    // longer documents would make the memory of the cache grow with their size
+    private static final int MAX_CACHED_DOCUMENT_LENGTH = 4096;
+    private static final long RACY_MODIFICATION_MILLIS = TimeUnit.SECONDS.toMillis(2);
+    private static final int FILE_FORMAT_VERSION = 1;
+
+    private final Hashing hashing;
+    private final Map<Object, String> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    public CachingHashing(Hashing hashing) {
+        this(hashing, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param hashing    the hashing to ask on a cache miss
+     * @param maxEntries how many hash codes are cached at most
+     */
+    public CachingHashing(Hashing hashing, int maxEntries) {
+        super(hashing.getImplementation());
+        this.hashing = hashing;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public String hashDocument(String document) {
+        if (document.length() > MAX_CACHED_DOCUMENT_LENGTH) {
+            return hashing.hashDocument(document);
+        }
+        String hash = lookUp(document);
+        if (hash == null) {
+            hash = hashing.hashDocument(document);
+            store(document, hash);
+        }
+        return hash;
+    }
+
+    @Override
+    public String hashDocument(ReadableByteChannel channel) throws IOException {
+        return hashing.hashDocument(channel);
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return hashing.newHasher();
+    }
+
+    @Override
+    public String hashDocument(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        FileIdentity identity = FileIdentity.of(file);
+        String hash = lookUp(identity);
+        if (hash != null) {
+            return hash;
+        }
+        hash = hashing.hashDocument(file);
+        // a file that changed while it was hashed has no hash code of a single version
+        if (identity.equals(FileIdentity.of(file)) && !identity.isRecentlyModified()) {
+            store(identity, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Removes all cached hash codes.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Writes the cached hash codes of files to the given file. The file is
+     * replaced at once, so a crash never leaves half a cache behind.
+     */
+    public void save(Path cacheFile) throws IOException {
+        List<Map.Entry<FileIdentity, String>> files = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Object, String> entry : entries.entrySet()) {
+                if (entry.getKey() instanceof FileIdentity identity) {
+                    files.add(Map.entry(identity, entry.getValue()));
+                }
+            }
+        }
+        Path directory = cacheFile.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FILE_FORMAT_VERSION);
+                output.writeUTF(getCacheName());
+                output.writeInt(files.size());
+                for (Map.Entry<FileIdentity, String> entry : files) {
+                    entry.getKey().writeTo(output);
+                    output.writeUTF(entry.getValue());
+                }
+            }
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Adds the hash codes saved in the given file to the cache. Nothing is
+     * loaded if the file does not exist or was saved for another hashing.
+     * Entries of files that changed since are never hit again and are
+     * evicted over time.
+     */
+    public void load(Path cacheFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (input.readInt() != FILE_FORMAT_VERSION
+                    || !input.readUTF().equals(getCacheName())) {
+                return;
+            }
+            int count = input.readInt();
+            for (int index = 0; index < count; index++) {
+                FileIdentity identity = FileIdentity.readFrom(input);
+                store(identity, input.readUTF());
+            }
+        } catch (NoSuchFileException e) {
+            // nothing was saved yet
+        } catch (EOFException e) {
+            throw new IOException("Truncated hash cache: " + cacheFile, e);
+        }
+    }
+
+    // hash codes of another hashing, or of the same hashing with another hash function, must not be loaded
+    private String getCacheName() {
+        return hashing.getClass().getName() + "/" + getImplementation().getClass().getName();
+    }
+
+    private synchronized String lookUp(Object key) {
+        String hash = entries.get(key);
+        if (hash == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return hash;
+    }
+
+    private synchronized void store(Object key, String hash) {
+        entries.put(key, hash);
+    }
+
+    /**
+     * Everything that tells whether a file is still the one that was hashed.
+     */
+    private static final class FileIdentity {
+
+        private final String path;
+        private final long size;
+        private final long lastModifiedMillis;
+        private final String fileKey;
+
+        private FileIdentity(String path, long size, long lastModifiedMillis, String fileKey) {
+            this.path = path;
+            this.size = size;
+            this.lastModifiedMillis = lastModifiedMillis;
+            this.fileKey = fileKey;
+        }
+
+        private static FileIdentity of(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            return new FileIdentity(file.toString(), attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    fileKey == null ? "" : fileKey.toString());
+        }
+
+        private static FileIdentity readFrom(DataInputStream input) throws IOException {
+            return new FileIdentity(input.readUTF(), input.readLong(), input.readLong(), input.readUTF());
+        }
+
+        private void writeTo(DataOutputStream output) throws IOException {
+            output.writeUTF(path);
+            output.writeLong(size);
+            output.writeLong(lastModifiedMillis);
+            output.writeUTF(fileKey);
+        }
+
+        private boolean isRecentlyModified() {
+            return System.currentTimeMillis() - lastModifiedMillis < RACY_MODIFICATION_MILLIS;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileIdentity other)) {
+                return false;
+            }
+            return size == other.size && lastModifiedMillis == other.lastModifiedMillis
+                    && path.equals(other.path) && fileKey.equals(other.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModifiedMillis, fileKey);
+        }
+    }
+}
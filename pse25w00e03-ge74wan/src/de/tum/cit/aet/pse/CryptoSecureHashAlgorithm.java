@@ -1,33 +1,229 @@
 package de.tum.cit.aet.pse;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-public class CryptoSecureHashAlgorithm implements HashFunction {
+public class CryptoSecureHashAlgorithm implements HashFunction, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private static final byte[] HEX_ARRAY = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
 
 	private static final int MAX_BYTE_SIZE = 0xFF;
 	private static final int SHIFT_AMOUNT = 4;
 	private static final int HALF_BYTE_NUMBER = 0x0F;
+	private static final int CHUNK_SIZE = 4096;
+	// files from this size on are mapped instead of read into the buffer
+	private static final long MAPPING_THRESHOLD = 1 << 20;
+	// bounds the address space one mapping takes, the mapped pages are released by the OS as needed
+	private static final long MAPPED_REGION_SIZE = 64L << 20;
 
+	// looking up a digest and allocating its engine costs more than hashing a small document
+	private static final ThreadLocal<DigestState> STATE = ThreadLocal.withInitial(DigestState::new);
 
 	@Override
 	public String calculateHashCode(String input) {
-		try {
-			byte[] hashedBytes = MessageDigest.getInstance("SHA-512").digest(input.getBytes(StandardCharsets.UTF_8));
-
-			// https://stackoverflow.com/a/9855338/5608927
-			byte[] hexChars = new byte[hashedBytes.length * 2];
-			for (int index = 0; index < hashedBytes.length; index++) {
-				int nextValue = hashedBytes[index] & MAX_BYTE_SIZE;
-				hexChars[index * 2] = HEX_ARRAY[nextValue >>> SHIFT_AMOUNT];
-				hexChars[index * 2 + 1] = HEX_ARRAY[nextValue & HALF_BYTE_NUMBER];
+		return toHex(STATE.get().digest(input));
+	}
+
+	/**
+	 * Hashes the bytes of the channel as they are, which gives the same hash
+	 * code as the decoded document because valid UTF-8 has a single encoding
+	 * of every document. The bytes are checked while they are hashed, so
+	 * malformed UTF-8 is rejected with a {@link MalformedInputException} like
+	 * by the other hash functions. Large files are mapped region by region,
+	 * so memory use does not grow with the file size.
+	 */
+	@Override
+	public String calculateHashCode(ReadableByteChannel channel) throws IOException {
+		return toHex(STATE.get().digest(channel));
+	}
+
+	/**
+	 * Returns a hasher with its own SHA-512, because the state of a
+	 * {@link MessageDigest} cannot be saved.
+	 */
+	@Override
+	public Hasher newHasher() {
+		return new Sha512Hasher();
+	}
+
+	static String toHex(byte[] hashedBytes) {
+		// https://stackoverflow.com/a/9855338/5608927
+		byte[] hexChars = new byte[hashedBytes.length * 2];
+		for (int index = 0; index < hashedBytes.length; index++) {
+			int nextValue = hashedBytes[index] & MAX_BYTE_SIZE;
+			hexChars[index * 2] = HEX_ARRAY[nextValue >>> SHIFT_AMOUNT];
+			hexChars[index * 2 + 1] = HEX_ARRAY[nextValue & HALF_BYTE_NUMBER];
+		}
+		return new String(hexChars, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The digest and buffers of one thread. The document is copied and
+	 * encoded to UTF-8 chunk by chunk, so no byte array of the whole document
+	 * is created. Bytes read from a channel are validated as UTF-8 chunk by
+	 * chunk, a code point split between two chunks is completed with the
+	 * next one.
+	 */
+	private static final class DigestState {
+
+		// the longest UTF-8 encoding of a code point
+		private static final int MAX_CHAR_BYTES = 4;
+		private static final byte REPLACEMENT = '?';
+
+		private final MessageDigest digest;
+		private final char[] chars;
+		private final byte[] bytes;
+		private final ByteBuffer buffer;
+		// the continuation bytes the current code point still needs, and the range of the next one
+		private int pendingBytes;
+		private int lowestNextByte;
+		private int highestNextByte;
+
+		private DigestState() {
+			try {
+				digest = MessageDigest.getInstance("SHA-512");
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+			chars = new char[CHUNK_SIZE];
+			bytes = new byte[CHUNK_SIZE * MAX_CHAR_BYTES];
+			buffer = ByteBuffer.wrap(bytes);
+		}
+
+		private byte[] digest(ReadableByteChannel channel) throws IOException {
+			pendingBytes = 0;
+			try {
+				if (channel instanceof FileChannel fileChannel
+						&& fileChannel.size() - fileChannel.position() >= MAPPING_THRESHOLD) {
+					digestMapped(fileChannel);
+				} else {
+					buffer.clear();
+					while (channel.read(buffer) >= 0) {
+						update(buffer.position());
+						buffer.clear();
+					}
+				}
+				if (pendingBytes > 0) {
+					throw new MalformedInputException(pendingBytes);
+				}
+			} catch (IOException | RuntimeException e) {
+				// the digest is reused by the next document of this thread
+				digest.reset();
+				throw e;
+			}
+			return digest.digest();
+		}
+
+		private void digestMapped(FileChannel channel) throws IOException {
+			long position = channel.position();
+			long size = channel.size();
+			while (position < size) {
+				long length = Math.min(MAPPED_REGION_SIZE, size - position);
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				while (region.hasRemaining()) {
+					int count = Math.min(bytes.length, region.remaining());
+					region.get(bytes, 0, count);
+					update(count);
+				}
+				position += length;
+			}
+			channel.position(size);
+		}
+
+		private void update(int count) throws MalformedInputException {
+			digest.update(bytes, 0, count);
+			for (int index = 0; index < count; index++) {
+				int b = bytes[index] & 0xFF;
+				if (pendingBytes > 0) {
+					if (b < lowestNextByte || b > highestNextByte) {
+						throw new MalformedInputException(1);
+					}
+					pendingBytes--;
+					lowestNextByte = 0x80;
+					highestNextByte = 0xBF;
+				} else if (b >= 0x80) {
+					startCodePoint(b);
+				}
+			}
+		}
+
+		// the ranges of the second byte rule out overlong encodings, surrogates and code points above U+10FFFF
+		private void startCodePoint(int b) throws MalformedInputException {
+			lowestNextByte = 0x80;
+			highestNextByte = 0xBF;
+			if (b >= 0xC2 && b <= 0xDF) {
+				pendingBytes = 1;
+			} else if (b >= 0xE0 && b <= 0xEF) {
+				pendingBytes = 2;
+				if (b == 0xE0) {
+					lowestNextByte = 0xA0;
+				} else if (b == 0xED) {
+					highestNextByte = 0x9F;
+				}
+			} else if (b >= 0xF0 && b <= 0xF4) {
+				pendingBytes = 3;
+				if (b == 0xF0) {
+					lowestNextByte = 0x90;
+				} else if (b == 0xF4) {
+					highestNextByte = 0x8F;
+				}
+			} else {
+				throw new MalformedInputException(1);
+			}
+		}
+
+		private byte[] digest(String input) {
+			int length = input.length();
+			int start = 0;
+			while (start < length) {
+				int end = Math.min(length, start + CHUNK_SIZE);
+				// a high surrogate at the end of a chunk is encoded with the next one, so pairs are never split
+				if (end < length && Character.isHighSurrogate(input.charAt(end - 1))) {
+					end--;
+				}
+				input.getChars(start, end, chars, 0);
+				digest.update(bytes, 0, encode(end - start));
+				start = end;
+			}
+			return digest.digest();
+		}
+
+		private int encode(int count) {
+			int position = 0;
+			for (int index = 0; index < count; index++) {
+				char c = chars[index];
+				if (c < 0x80) {
+					bytes[position++] = (byte) c;
+				} else if (c < 0x800) {
+					bytes[position++] = (byte) (0xC0 | c >> 6);
+					bytes[position++] = (byte) (0x80 | c & 0x3F);
+				} else if (!Character.isSurrogate(c)) {
+					bytes[position++] = (byte) (0xE0 | c >> 12);
+					bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+					bytes[position++] = (byte) (0x80 | c & 0x3F);
+				} else if (Character.isHighSurrogate(c) && index + 1 < count
+						&& Character.isLowSurrogate(chars[index + 1])) {
+					int codePoint = Character.toCodePoint(c, chars[++index]);
+					bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+					bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+					bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+					bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+				} else {
+					// unpaired surrogates are replaced like String.getBytes does
+					bytes[position++] = REPLACEMENT;
+				}
 			}
-			return new String(hexChars, StandardCharsets.UTF_8);
-		} catch (NoSuchAlgorithmException e) {
-			throw new RuntimeException(e);
+			return position;
 		}
 	}
 
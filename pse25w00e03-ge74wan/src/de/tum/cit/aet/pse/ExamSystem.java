@@ -3,6 +3,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
+import java.util.List;
 
 public final class ExamSystem {
 
@@ -14,35 +15,40 @@ public static String hashFile(String document, Hashing hashing) {
 		return hashing.hashDocument(document);
 	}
 
+	/**
+	 * Hashes the file while it is read, so the file is never held in memory
+	 * as a whole.
+	 */
+	public static String hashFile(Path file, Hashing hashing) {
+		try {
+			return hashing.hashDocument(file);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + file, e);
+		}
+	}
+
 	public static void main(String[] args) {
-		 String file1 = readFile("exams/short_exam.txt");
-                String file2 = readFile("exams/long_exam.txt");  //This file is too big for Preview Hashing
+		 Path file1 = Path.of("exams/short_exam.txt");
+                Path file2 = Path.of("exams/long_exam.txt");
 
                 // TODO 6: Change SimpleHash to PreviewHashing
                 Hashing previewHashing = new PreviewHashing();
 
                 System.out.println(hashFile(file1, previewHashing));
-                try {
-                        System.out.println(hashFile(file2, previewHashing));
-                        throw new IllegalStateException("Hashing this file with preview hashing should not work!");
-                } catch (IllegalArgumentException e) {
-                        e.printStackTrace();
-                }
+                System.out.println(hashFile(file2, previewHashing));
 
                 // TODO 6: Change CryptoSecureHashAlgorithm to EnterpriseHashing
-                Hashing enterpriseHashing = new EnterpriseHashing();
-
-                System.out.println(hashFile(file1, enterpriseHashing));
-
-
-                System.out.println(hashFile(file1, enterpriseHashing));
-                System.out.println(hashFile(file2, enterpriseHashing));
-
-                System.out.println(hashFile(file1, enterpriseHashing));
+                CachingHashing enterpriseHashing = new CachingHashing(new EnterpriseHashing());
 
+                // every file is hashed once, however often it is passed
+                try (BatchHashingService batchHashing = new BatchHashingService(enterpriseHashing)) {
+                        batchHashing.hashFiles(List.of(file1, file1, file2, file1, file1, file2), System.out::println);
+                }
 
+                // answered from the cache as long as the file does not change
                 System.out.println(hashFile(file1, enterpriseHashing));
                 System.out.println(hashFile(file2, enterpriseHashing));
+                System.out.printf("Hash cache hit rate: %.0f%%%n", enterpriseHashing.getHitRate() * 100);
 
 	}
 
@@ -1,7 +1,42 @@
 package de.tum.cit.aet.pse;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+
 public interface HashFunction {
 
 	String calculateHashCode(String input);
 
+	/**
+	 * Calculates the hash code of the UTF-8 encoded document read from the
+	 * channel, which is the hash code of the decoded document. The default
+	 * implementation reads the whole document into a String, implementations
+	 * should override it to hash the document while it is read.
+	 *
+	 * @throws MalformedInputException if the channel does not hold valid UTF-8,
+	 *                                 because there is no decoded document it
+	 *                                 could have the hash code of
+	 */
+	default String calculateHashCode(ReadableByteChannel channel) throws IOException {
+		byte[] document = Channels.newInputStream(channel).readAllBytes();
+		return calculateHashCode(StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(document)).toString());
+	}
+
+	/**
+	 * Returns a hasher for a document that is hashed while it grows. The
+	 * default implementation keeps the whole document and hashes it again on
+	 * every snapshot, implementations should override it to resume from
+	 * their intermediate state.
+	 *
+	 * @throws IllegalArgumentException if the default implementation is used
+	 *                                  and this hash function is not serializable
+	 */
+	default Hasher newHasher() {
+		return new BufferingHasher(this);
+	}
+
 }
@@ -0,0 +1,49 @@
+package de.tum.cit.aet.pse;
+
+import java.io.Serializable;
+
+/**
+ * Hashes a document that grows over time, such as a log that is appended to
+ * during an exam. Only the appended chars are passed to {@link #update}, and
+ * {@link #snapshot()} returns the hash code of everything passed so far, the
+ * same hash code {@link HashFunction#calculateHashCode(String)} returns for
+ * the whole document.
+ * <p>
+ * A hasher can be serialized between two updates, so hashing resumes after a
+ * restart without reading the document again. A surrogate pair may be split
+ * between two updates.
+ */
+public interface Hasher extends Serializable {
+
+	/**
+	 * Consumes the chars from {@code from} to {@code to}, exclusive.
+	 */
+	void update(char[] chars, int from, int to);
+
+	/**
+	 * Consumes the appended chars.
+	 */
+	default void update(String chars) {
+		// a bulk copy into a small buffer is faster than reading the String char by char
+		char[] buffer = new char[Math.min(8192, chars.length())];
+		for (int start = 0; start < chars.length(); start += buffer.length) {
+			int end = Math.min(chars.length(), start + buffer.length);
+			chars.getChars(start, end, buffer, 0);
+			update(buffer, 0, end - start);
+		}
+	}
+
+	/**
+	 * @return the hash code of all consumed chars, the hasher can still be
+	 *         updated afterwards
+	 */
+	String snapshot();
+
+	/**
+	 * @return the hash code of all consumed chars, the hasher must not be
+	 *         used afterwards
+	 */
+	default String finish() {
+		return snapshot();
+	}
+}
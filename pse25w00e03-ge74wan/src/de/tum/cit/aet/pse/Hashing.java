@@ -1,5 +1,13 @@
 package de.tum.cit.aet.pse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 public abstract class Hashing 
 {
     private HashFunction implementation;
@@ -14,4 +22,32 @@ public HashFunction getImplementation() {
     }
 
     public abstract String hashDocument(String document);
+
+    /**
+     * Hashes the UTF-8 encoded document read from the channel without
+     * loading it as a whole, as long as the implementation supports it.
+     * Malformed UTF-8 is rejected with a
+     * {@link java.nio.charset.MalformedInputException}.
+     */
+    public String hashDocument(ReadableByteChannel channel) throws IOException {
+        return implementation.calculateHashCode(channel);
+    }
+
+    /**
+     * Returns a hasher for a document that grows, whose snapshots equal the
+     * hash codes of {@link #hashDocument(String)}.
+     */
+    public Hasher newHasher() {
+        return implementation.newHasher();
+    }
+
+    public String hashDocument(InputStream inputStream) throws IOException {
+        return hashDocument(Channels.newChannel(inputStream));
+    }
+
+    public String hashDocument(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return hashDocument(channel);
+        }
+    }
 }
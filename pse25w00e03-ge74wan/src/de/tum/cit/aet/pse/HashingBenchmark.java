@@ -0,0 +1,135 @@
+package de.tum.cit.aet.pse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the hash functions for small, medium and large
+ * documents, how often the fast hash functions collide, and how Merkle hashing of one very large document scales with
+ * the number of threads. Every measurement is preceded by a warm-up, so the
+ * numbers are taken from compiled code.
+ */
+public final class HashingBenchmark {
+
+	private static final int[] SIZES = {1024, 64 * 1024, 10 * 1024 * 1024};
+	private static final long WARM_UP_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long MEASURE_NANOS = TimeUnit.SECONDS.toNanos(2);
+	private static final int COLLISION_DOCUMENTS = 1_000_000;
+	private static final int MERKLE_SIZE = 32 * 1024 * 1024;
+
+	private HashingBenchmark() {
+	}
+
+	public static void main(String[] args) {
+		HashFunction baseline = HashingBenchmark::hashWithNewDigest;
+		HashFunction crypto = new CryptoSecureHashAlgorithm();
+		HashFunction simple = new SimpleHashAlgorithm();
+		HashFunction xxHash64 = new XxHash64Algorithm();
+		HashFunction murmur3 = new Murmur3HashAlgorithm();
+		for (int size : SIZES) {
+			String document = randomDocument(size);
+			if (!baseline.calculateHashCode(document).equals(crypto.calculateHashCode(document))) {
+				throw new IllegalStateException("Hash functions disagree");
+			}
+			report("SHA-512, new digest per call", size, baseline, document);
+			report("SHA-512, reused digest", size, crypto, document);
+			report("Simple", size, simple, document);
+			report("xxHash64", size, xxHash64, document);
+			report("MurmurHash3", size, murmur3, document);
+		}
+
+		reportCollisions("Simple", simple);
+		reportCollisions("xxHash64", xxHash64);
+		reportCollisions("MurmurHash3", murmur3);
+
+		// one large document, hashed sequentially and as a Merkle tree on more and more cores
+		String document = randomDocument(MERKLE_SIZE);
+		report("SHA-512, sequential", MERKLE_SIZE, crypto, document);
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int parallelism = 1; parallelism <= processors; parallelism = nextParallelism(parallelism, processors)) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			MerkleHashing merkleHashing = new MerkleHashing(crypto, 64 * 1024, pool);
+			report("Merkle, parallelism " + parallelism, MERKLE_SIZE, merkleHashing::hashDocument, document);
+			pool.shutdown();
+		}
+	}
+
+	// doubles the threads, but always measures all processors at the end
+	private static int nextParallelism(int parallelism, int processors) {
+		return parallelism < processors && parallelism * 2 > processors ? processors : parallelism * 2;
+	}
+
+	private static void report(String name, int size, HashFunction hashFunction, String document) {
+		run(hashFunction, document, WARM_UP_NANOS);
+		long hashes = run(hashFunction, document, MEASURE_NANOS);
+		double seconds = (double) MEASURE_NANOS / TimeUnit.SECONDS.toNanos(1);
+		System.out.printf("%-30s %,10d chars: %,12.0f hashes/s %,10.1f MB/s%n", name, size, hashes / seconds,
+				hashes * (double) size / seconds / (1024 * 1024));
+	}
+
+	/*
+	 * Hashes many documents that differ in a few chars only, like the exams
+	 * of one course, and counts how many of them share a hash code with
+	 * another one.
+	 */
+	private static void reportCollisions(String name, HashFunction hashFunction) {
+		System.out.printf("%-30s %,10d documents: %,12d collisions%n", name, COLLISION_DOCUMENTS,
+				countCollisions(hashFunction, COLLISION_DOCUMENTS));
+	}
+
+	/**
+	 * @return how many of the given number of exam documents share a hash code with another one
+	 */
+	static int countCollisions(HashFunction hashFunction, int documents) {
+		Set<String> hashCodes = new HashSet<>();
+		for (int i = 0; i < documents; i++) {
+			hashCodes.add(hashFunction.calculateHashCode("Exam " + i + ": student " + i % 1000 + " answered " + i / 1000));
+		}
+		return documents - hashCodes.size();
+	}
+
+	private static long run(HashFunction hashFunction, String document, long nanos) {
+		long hashes = 0;
+		long end = System.nanoTime() + nanos;
+		int sink = 0;
+		while (System.nanoTime() < end) {
+			sink += hashFunction.calculateHashCode(document).length();
+			hashes++;
+		}
+		if (sink == 0) {
+			throw new IllegalStateException();
+		}
+		return hashes;
+	}
+
+	// mostly ASCII text with some umlauts and euro signs, like the exams
+	private static String randomDocument(int size) {
+		String alphabet = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789 .,;\u00e4\u00f6\u00fc\u00df\u20ac\n";
+		Random random = new Random(size);
+		StringBuilder document = new StringBuilder(size);
+		for (int i = 0; i < size; i++) {
+			document.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return document.toString();
+	}
+
+	private static String hashWithNewDigest(String input) {
+		try {
+			byte[] hashedBytes = MessageDigest.getInstance("SHA-512").digest(input.getBytes(StandardCharsets.UTF_8));
+			char[] hex = new char[hashedBytes.length * 2];
+			for (int index = 0; index < hashedBytes.length; index++) {
+				hex[index * 2] = Character.toUpperCase(Character.forDigit(hashedBytes[index] >> 4 & 0x0F, 16));
+				hex[index * 2 + 1] = Character.toUpperCase(Character.forDigit(hashedBytes[index] & 0x0F, 16));
+			}
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package de.tum.cit.aet.pse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link Hashing} that splits a document into chunks, hashes the chunks in
+ * parallel and combines their hash codes in a binary tree, so one large
+ * document is hashed by all cores.
+ * <p>
+ * Chunks are a fixed number of chars long. A chunk boundary that would split
+ * a surrogate pair is moved behind the pair. Chunks and inner nodes are
+ * hashed with different prefixes, so a chunk can never be mistaken for a
+ * node. A node without a right sibling is carried up to the next level as
+ * it is.
+ * <p>
+ * The hash codes differ from the ones of {@link EnterpriseHashing}, even if
+ * both use the same hash function.
+ */
+public class MerkleHashing extends Hashing {
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    private static final String LEAF_PREFIX = "\0";
+    private static final String NODE_PREFIX = "\1";
+    // inner nodes are cheap to hash, so they are split into larger tasks than chunks
+    private static final int NODES_PER_TASK = 64;
+
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public MerkleHashing() {
+        this(new CryptoSecureHashAlgorithm(), DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param hashFunction the hash function to hash the chunks and nodes with
+     * @param chunkSize    how many chars a chunk has
+     * @param pool         the pool to hash the chunks on
+     */
+    public MerkleHashing(HashFunction hashFunction, int chunkSize, ForkJoinPool pool) {
+        super(hashFunction);
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("Chunks must have at least two chars");
+        }
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    @Override
+    public String hashDocument(String document) {
+        return buildTree(document).getRootHash();
+    }
+
+    /**
+     * Hashes the document and keeps the hash codes of all chunks and nodes,
+     * so a changed range can be rehashed later.
+     */
+    public MerkleTree buildTree(String document) {
+        String[] leaves = new String[chunkCount(document)];
+        hashLeaves(document, leaves, 0, leaves.length);
+        return new MerkleTree(this, document.length(), leaves);
+    }
+
+    /**
+     * Decodes the document chunk by chunk and hashes each chunk while the
+     * next one is read. Only a few chunks are held in memory at a time.
+     */
+    @Override
+    public String hashDocument(ReadableByteChannel channel) throws IOException {
+        Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1);
+        int maxPendingChunks = pool.getParallelism() * 2;
+        Deque<ForkJoinTask<String>> pendingLeaves = new ArrayDeque<>();
+        List<String> leaves = new ArrayList<>();
+        char[] buffer = new char[chunkSize + 1];
+        int carried = -1;
+        int shift = 0;
+        long length = 0;
+        while (true) {
+            int count = 0;
+            if (carried >= 0) {
+                buffer[count++] = (char) carried;
+                carried = -1;
+            }
+            // a chunk ends at the next multiple of the chunk size
+            int end = chunkSize - shift;
+            boolean endOfDocument = false;
+            while (count < end) {
+                int read = reader.read(buffer, count, end - count);
+                if (read < 0) {
+                    endOfDocument = true;
+                    break;
+                }
+                count += read;
+            }
+            shift = 0;
+            if (!endOfDocument) {
+                int next = reader.read();
+                if (next < 0) {
+                    endOfDocument = true;
+                } else if (Character.isHighSurrogate(buffer[count - 1]) && Character.isLowSurrogate((char) next)) {
+                    buffer[count++] = (char) next;
+                    shift = 1;
+                } else {
+                    carried = next;
+                }
+            }
+            if (count > 0 || length == 0 && leaves.isEmpty() && pendingLeaves.isEmpty()) {
+                String chunk = new String(buffer, 0, count);
+                pendingLeaves.add(pool.submit(() -> hashLeaf(chunk, 0, chunk.length())));
+                length += count;
+            }
+            while (pendingLeaves.size() > maxPendingChunks || endOfDocument && !pendingLeaves.isEmpty()) {
+                leaves.add(pendingLeaves.poll().join());
+            }
+            if (endOfDocument) {
+                break;
+            }
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Document too long for Merkle Hashing");
+        }
+        return new MerkleTree(this, (int) length, leaves.toArray(new String[0])).getRootHash();
+    }
+
+    /**
+     * Returns a hasher that hashes each chunk as soon as it is complete. It
+     * keeps a hasher of the current chunk and the roots of at most one
+     * complete subtree per level, so a snapshot takes O(log n) node hashes.
+     * The chunks are hashed on the calling thread. A document that is
+     * overwritten but keeps its length can be rehashed with
+     * {@link MerkleTree#rehash}.
+     *
+     * @throws IllegalArgumentException if the hash function is not serializable
+     */
+    @Override
+    public Hasher newHasher() {
+        return new MerkleHasher(getImplementation(), chunkSize);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return how many chunks a document is split into, at least one
+     */
+    int chunkCount(CharSequence document) {
+        int length = document.length();
+        if (length == 0) {
+            return 1;
+        }
+        int count = (length - 1) / chunkSize + 1;
+        // the last boundary may have been moved behind the last char
+        if (count > 1 && chunkStart(document, count - 1) == length) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * @return the index of the first char of the given chunk
+     */
+    int chunkStart(CharSequence document, int chunk) {
+        long start = (long) chunk * chunkSize;
+        if (start >= document.length()) {
+            return document.length();
+        }
+        int index = (int) start;
+        if (index > 0 && Character.isHighSurrogate(document.charAt(index - 1))
+                && Character.isLowSurrogate(document.charAt(index))) {
+            return index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Hashes the chunks from {@code first} to {@code last}, exclusive, into
+     * {@code leaves}, every chunk in its own task.
+     */
+    void hashLeaves(String document, String[] leaves, int first, int last) {
+        int chunks = leaves.length;
+        run(first, last, 1, chunk -> {
+            int start = chunkStart(document, chunk);
+            int end = chunk == chunks - 1 ? document.length() : chunkStart(document, chunk + 1);
+            leaves[chunk] = hashLeaf(document, start, end);
+        });
+    }
+
+    /**
+     * Hashes the parents of the nodes from {@code first} to {@code last},
+     * exclusive, from the level below into {@code parents}.
+     */
+    void hashNodes(String[] children, String[] parents, int first, int last) {
+        run(first, last, NODES_PER_TASK, parent -> {
+            int left = parent * 2;
+            parents[parent] = left + 1 < children.length
+                    ? hashNode(getImplementation(), children[left], children[left + 1])
+                    : children[left];
+        });
+    }
+
+    private static String hashNode(HashFunction hashFunction, String left, String right) {
+        return hashFunction.calculateHashCode(NODE_PREFIX + left + right);
+    }
+
+    private String hashLeaf(String document, int start, int end) {
+        String leaf = new StringBuilder(end - start + 1).append(LEAF_PREFIX).append(document, start, end).toString();
+        return getImplementation().calculateHashCode(leaf);
+    }
+
+    private void run(int first, int last, int threshold, IntConsumer action) {
+        if (last - first <= threshold) {
+            for (int index = first; index < last; index++) {
+                action.accept(index);
+            }
+        } else {
+            pool.invoke(new RangeTask(first, last, threshold, action));
+        }
+    }
+
+    /**
+     * Hashes a growing document chunk by chunk, with the same chunk
+     * boundaries as {@link #chunkStart}. As nodes are paired from the left
+     * and a node without a right sibling is carried up, the completed chunks
+     * form complete subtrees like the bits of their count, and the root is
+     * the fold of these subtrees from the right.
+     */
+    private static final class MerkleHasher implements Hasher {
+
+        private static final long serialVersionUID = 1L;
+
+        // checked to be serializable in the constructor
+        @SuppressWarnings("serial")
+        private final HashFunction hashFunction;
+        private final int chunkSize;
+        // the roots of the complete subtrees, the largest first
+        private final ArrayList<String> subtrees = new ArrayList<>();
+        private long completedChunks;
+        private Hasher chunk;
+        private int chunkLength;
+        private long length;
+        // where the current chunk ends, unless a surrogate pair is split there
+        private long chunkEnd;
+        private char lastChar;
+
+        private MerkleHasher(HashFunction hashFunction, int chunkSize) {
+            if (!(hashFunction instanceof Serializable)) {
+                throw new IllegalArgumentException(hashFunction.getClass().getName() + " is not serializable");
+            }
+            this.hashFunction = hashFunction;
+            this.chunkSize = chunkSize;
+            this.chunkEnd = chunkSize;
+            startChunk();
+        }
+
+        @Override
+        public void update(char[] chars, int from, int to) {
+            int start = from;
+            while (start < to) {
+                if (length == chunkEnd) {
+                    // the boundary is moved behind a surrogate pair
+                    if (Character.isHighSurrogate(lastChar) && Character.isLowSurrogate(chars[start])) {
+                        consume(chars, start, start + 1);
+                        start++;
+                    }
+                    completeChunk();
+                    chunkEnd += chunkSize;
+                    continue;
+                }
+                int end = (int) Math.min(to, start + (chunkEnd - length));
+                consume(chars, start, end);
+                start = end;
+            }
+        }
+
+        @Override
+        public String snapshot() {
+            String root = chunkLength > 0 || completedChunks == 0 ? chunk.snapshot() : null;
+            for (int index = subtrees.size() - 1; index >= 0; index--) {
+                root = root == null ? subtrees.get(index) : hashNode(hashFunction, subtrees.get(index), root);
+            }
+            return root;
+        }
+
+        private void consume(char[] chars, int from, int to) {
+            chunk.update(chars, from, to);
+            chunkLength += to - from;
+            length += to - from;
+            lastChar = chars[to - 1];
+        }
+
+        private void completeChunk() {
+            subtrees.add(chunk.finish());
+            completedChunks++;
+            // two subtrees of the same size are merged, like the carry of a binary counter
+            for (long count = completedChunks; (count & 1) == 0; count >>>= 1) {
+                String right = subtrees.remove(subtrees.size() - 1);
+                String left = subtrees.remove(subtrees.size() - 1);
+                subtrees.add(hashNode(hashFunction, left, right));
+            }
+            startChunk();
+        }
+
+        private void startChunk() {
+            chunk = hashFunction.newHasher();
+            chunk.update(LEAF_PREFIX);
+            chunkLength = 0;
+        }
+    }
+
+    /**
+     * Applies an action to a range of indices and splits the range in halves
+     * as long as it is larger than the threshold. The tasks inherit
+     * Serializable from ForkJoinTask, but are never serialized, so their
+     * action does not have to be serializable.
+     */
+    @SuppressWarnings("serial")
+    private static final class RangeTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final IntConsumer action;
+
+        private RangeTask(int from, int to, int threshold, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int index = from; index < to; index++) {
+                    action.accept(index);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, threshold, action), new RangeTask(middle, to, threshold, action));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The hash codes of all chunks and inner nodes of a document hashed by
+ * {@link MerkleHashing}.
+ * <p>
+ * When a range of the document is overwritten, only the chunks around the
+ * range and their ancestors are hashed again, so a small change in a large
+ * document is verified in a fraction of the time a full hash takes.
+ */
+public final class MerkleTree {
+
+    private final MerkleHashing hashing;
+    private final int length;
+    // the chunks on level 0, the root on the last level
+    private String[][] levels;
+
+    MerkleTree(MerkleHashing hashing, int length, String[] leaves) {
+        this.hashing = hashing;
+        this.length = length;
+        build(leaves);
+    }
+
+    private void build(String[] leaves) {
+        int height = 1;
+        for (int nodes = leaves.length; nodes > 1; nodes = (nodes + 1) / 2) {
+            height++;
+        }
+        levels = new String[height][];
+        levels[0] = leaves;
+        for (int level = 1; level < height; level++) {
+            levels[level] = new String[(levels[level - 1].length + 1) / 2];
+            hashing.hashNodes(levels[level - 1], levels[level], 0, levels[level].length);
+        }
+    }
+
+    public synchronized String getRootHash() {
+        return levels[levels.length - 1][0];
+    }
+
+    public synchronized int getChunkCount() {
+        return levels[0].length;
+    }
+
+    /**
+     * Rehashes the document after the chars from {@code from} to {@code to},
+     * exclusive, were overwritten. The document must have kept its length.
+     *
+     * @param document the changed document
+     * @return the new root hash
+     */
+    public synchronized String rehash(String document, int from, int to) {
+        if (document.length() != length) {
+            throw new IllegalArgumentException("Document length changed from " + length + " to " + document.length());
+        }
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " outside of " + length + " chars");
+        }
+        if (from == to) {
+            return getRootHash();
+        }
+        int chunks = hashing.chunkCount(document);
+        if (chunks != levels[0].length) {
+            // a surrogate pair moved the last boundary behind the last char, or back
+            String[] leaves = new String[chunks];
+            hashing.hashLeaves(document, leaves, 0, chunks);
+            build(leaves);
+            return getRootHash();
+        }
+        int chunkSize = hashing.getChunkSize();
+        // a changed char can move the boundary before or after its chunk
+        int first = Math.max(0, from / chunkSize - 1);
+        int last = Math.min(levels[0].length, to / chunkSize + 1);
+        hashing.hashLeaves(document, levels[0], first, last);
+        for (int level = 1; level < levels.length; level++) {
+            first /= 2;
+            last = (last + 1) / 2;
+            hashing.hashNodes(levels[level - 1], levels[level], first, last);
+        }
+        return getRootHash();
+    }
+}
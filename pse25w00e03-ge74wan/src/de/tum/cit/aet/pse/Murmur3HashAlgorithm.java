@@ -0,0 +1,135 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The non-cryptographic MurmurHash3 hash function in its 128-bit x64
+ * variant over the UTF-16 chars of a document, in little-endian byte order.
+ * The hash code lists the 16 bytes of the hash in little-endian order. Like
+ * xxHash64 it is fast and collides rarely by accident, but it can be forged.
+ */
+public class Murmur3HashAlgorithm extends StreamingHashFunction {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long C1 = 0x87C37B91114253D5L;
+	private static final long C2 = 0x4CF5AD432745937FL;
+	// a block has 16 bytes, which are 8 chars
+	private static final int BLOCK_CHARS = 8;
+
+	private final long seed;
+
+	public Murmur3HashAlgorithm() {
+		this(0);
+	}
+
+	public Murmur3HashAlgorithm(int seed) {
+		this.seed = seed & 0xFFFFFFFFL;
+	}
+
+	@Override
+	public Hasher newHasher() {
+		return new Murmur3Hasher(seed);
+	}
+
+	// four chars make one 64-bit word
+	private static long word(char[] chars, int index) {
+		return chars[index] | (long) chars[index + 1] << 16 | (long) chars[index + 2] << 32
+				| (long) chars[index + 3] << 48;
+	}
+
+	// the word of the last, incomplete block
+	private static long word(char[] chars, int index, int count) {
+		long word = 0;
+		for (int offset = 0; offset < count; offset++) {
+			word |= (long) chars[index + offset] << 16 * offset;
+		}
+		return word;
+	}
+
+	private static long mixK1(long k1) {
+		return Long.rotateLeft(k1 * C1, 31) * C2;
+	}
+
+	private static long mixK2(long k2) {
+		return Long.rotateLeft(k2 * C2, 33) * C1;
+	}
+
+	private static long fmix64(long k) {
+		k ^= k >>> 33;
+		k *= 0xFF51AFD7ED558CCDL;
+		k ^= k >>> 33;
+		k *= 0xC4CEB9FE1A85EC53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	private static final class Murmur3Hasher implements Hasher {
+
+		private static final long serialVersionUID = 1L;
+
+		private final char[] block = new char[BLOCK_CHARS];
+		private long h1;
+		private long h2;
+		private int blockLength;
+		private long length;
+
+		private Murmur3Hasher(long seed) {
+			h1 = seed;
+			h2 = seed;
+		}
+
+		@Override
+		public void update(char[] chars, int from, int to) {
+			length += to - from;
+			int index = from;
+			if (blockLength > 0) {
+				while (blockLength < BLOCK_CHARS && index < to) {
+					block[blockLength++] = chars[index++];
+				}
+				if (blockLength < BLOCK_CHARS) {
+					return;
+				}
+				consume(block, 0);
+				blockLength = 0;
+			}
+			for (; index + BLOCK_CHARS <= to; index += BLOCK_CHARS) {
+				consume(chars, index);
+			}
+			while (index < to) {
+				block[blockLength++] = chars[index++];
+			}
+		}
+
+		private void consume(char[] chars, int index) {
+			h1 ^= mixK1(word(chars, index));
+			h1 = Long.rotateLeft(h1, 27) + h2;
+			h1 = h1 * 5 + 0x52DCE729;
+			h2 ^= mixK2(word(chars, index + 4));
+			h2 = Long.rotateLeft(h2, 31) + h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+
+		@Override
+		public String snapshot() {
+			long h1 = this.h1;
+			long h2 = this.h2;
+			if (blockLength > 4) {
+				h2 ^= mixK2(word(block, 4, blockLength - 4));
+			}
+			if (blockLength > 0) {
+				h1 ^= mixK1(word(block, 0, Math.min(blockLength, 4)));
+			}
+
+			long bytes = length * 2;
+			h1 ^= bytes;
+			h2 ^= bytes;
+			h1 += h2;
+			h2 += h1;
+			h1 = fmix64(h1);
+			h2 = fmix64(h2);
+			h1 += h2;
+			h2 += h1;
+			return toHex(Long.reverseBytes(h1), Long.reverseBytes(h2));
+		}
+	}
+
+}
@@ -1,16 +1,22 @@
 package de.tum.cit.aet.pse;
 
+/**
+ * Hashes documents of any length with the fast, non-cryptographic xxHash64.
+ * Preview hash codes tell documents apart, but unlike the ones of
+ * {@link EnterpriseHashing} they do not prove that a document was not
+ * tampered with.
+ * <p>
+ * Preview hash codes used to be calculated with {@link SimpleHashAlgorithm}.
+ * Previews stored with those hash codes do not match the ones calculated now
+ * and have to be hashed again.
+ */
 public class PreviewHashing extends Hashing {
-    private static final int PREVIEW_HASH_MAXIMUM_LENGTH = 1000;
     public PreviewHashing() {
-        super(new SimpleHashAlgorithm());
+        super(new XxHash64Algorithm());
     }
 
     @Override
     public String hashDocument(String document) {
-        if (document.length() <= PREVIEW_HASH_MAXIMUM_LENGTH)
-            return getImplementation().calculateHashCode(document);
-        else
-            throw new IllegalArgumentException("Document too long for Preview Hashing");
+        return getImplementation().calculateHashCode(document);
     }
 }
@@ -0,0 +1,195 @@
+package de.tum.cit.aet.pse;
+
+import java.math.BigInteger;
+
+/**
+ * SHA-512 over the UTF-8 encoding of a document, with a state that can be
+ * serialized. {@link java.security.MessageDigest} cannot export its state, so
+ * this hasher implements the compression function itself. The hash codes
+ * equal the ones of {@link CryptoSecureHashAlgorithm}, including the
+ * replacement of unpaired surrogates by '?'.
+ */
+final class Sha512Hasher implements Hasher {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int BLOCK_SIZE = 128;
+	// the last 16 bytes of the last block hold the length in bits
+	private static final int LENGTH_OFFSET = BLOCK_SIZE - 16;
+	private static final int ROUNDS = 80;
+	private static final byte REPLACEMENT = '?';
+
+	// the fractional parts of the square roots of the first 8 primes
+	private static final long[] INITIAL_STATE = new long[8];
+	// the fractional parts of the cube roots of the first 80 primes
+	private static final long[] ROUND_CONSTANTS = new long[ROUNDS];
+
+	static {
+		int prime = 1;
+		for (int index = 0; index < ROUNDS; index++) {
+			prime = BigInteger.valueOf(prime).nextProbablePrime().intValueExact();
+			BigInteger value = BigInteger.valueOf(prime);
+			if (index < INITIAL_STATE.length) {
+				INITIAL_STATE[index] = value.shiftLeft(128).sqrt().longValue();
+			}
+			ROUND_CONSTANTS[index] = cubeRoot(value.shiftLeft(192)).longValue();
+		}
+	}
+
+	private final long[] state = INITIAL_STATE.clone();
+	private final byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength;
+	private long length;
+	// a high surrogate at the end of an update, waiting for its low surrogate
+	private char pendingSurrogate;
+	private transient long[] schedule;
+
+	@Override
+	public void update(char[] chars, int from, int to) {
+		for (int index = from; index < to; index++) {
+			char c = chars[index];
+			if (pendingSurrogate != 0) {
+				char high = pendingSurrogate;
+				pendingSurrogate = 0;
+				if (Character.isLowSurrogate(c)) {
+					int codePoint = Character.toCodePoint(high, c);
+					append((byte) (0xF0 | codePoint >> 18));
+					append((byte) (0x80 | codePoint >> 12 & 0x3F));
+					append((byte) (0x80 | codePoint >> 6 & 0x3F));
+					append((byte) (0x80 | codePoint & 0x3F));
+					continue;
+				}
+				append(REPLACEMENT);
+			}
+			if (c < 0x80) {
+				append((byte) c);
+			} else if (c < 0x800) {
+				append((byte) (0xC0 | c >> 6));
+				append((byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c)) {
+				pendingSurrogate = c;
+			} else if (Character.isLowSurrogate(c)) {
+				append(REPLACEMENT);
+			} else {
+				append((byte) (0xE0 | c >> 12));
+				append((byte) (0x80 | c >> 6 & 0x3F));
+				append((byte) (0x80 | c & 0x3F));
+			}
+		}
+	}
+
+	@Override
+	public String snapshot() {
+		Sha512Hasher copy = new Sha512Hasher();
+		System.arraycopy(state, 0, copy.state, 0, state.length);
+		System.arraycopy(block, 0, copy.block, 0, blockLength);
+		copy.blockLength = blockLength;
+		copy.length = length;
+		copy.pendingSurrogate = pendingSurrogate;
+		copy.schedule = schedule;
+		return copy.finish();
+	}
+
+	@Override
+	public String finish() {
+		if (pendingSurrogate != 0) {
+			pendingSurrogate = 0;
+			append(REPLACEMENT);
+		}
+		long bits = length << 3;
+		long highBits = length >>> 61;
+		append((byte) 0x80);
+		while (blockLength != LENGTH_OFFSET) {
+			append((byte) 0);
+		}
+		writeLong(highBits, LENGTH_OFFSET);
+		writeLong(bits, LENGTH_OFFSET + 8);
+		compress();
+
+		byte[] hash = new byte[state.length * 8];
+		for (int index = 0; index < hash.length; index++) {
+			hash[index] = (byte) (state[index / 8] >>> 56 - index % 8 * 8);
+		}
+		return CryptoSecureHashAlgorithm.toHex(hash);
+	}
+
+	private void append(byte value) {
+		block[blockLength++] = value;
+		length++;
+		if (blockLength == BLOCK_SIZE) {
+			compress();
+			blockLength = 0;
+		}
+	}
+
+	private void writeLong(long value, int offset) {
+		for (int index = 0; index < 8; index++) {
+			block[offset + index] = (byte) (value >>> 56 - index * 8);
+		}
+	}
+
+	private void compress() {
+		if (schedule == null) {
+			schedule = new long[ROUNDS];
+		}
+		long[] w = schedule;
+		for (int t = 0; t < 16; t++) {
+			long word = 0;
+			for (int index = 0; index < 8; index++) {
+				word = word << 8 | block[t * 8 + index] & 0xFF;
+			}
+			w[t] = word;
+		}
+		for (int t = 16; t < ROUNDS; t++) {
+			long s0 = Long.rotateRight(w[t - 15], 1) ^ Long.rotateRight(w[t - 15], 8) ^ w[t - 15] >>> 7;
+			long s1 = Long.rotateRight(w[t - 2], 19) ^ Long.rotateRight(w[t - 2], 61) ^ w[t - 2] >>> 6;
+			w[t] = w[t - 16] + s0 + w[t - 7] + s1;
+		}
+
+		long a = state[0];
+		long b = state[1];
+		long c = state[2];
+		long d = state[3];
+		long e = state[4];
+		long f = state[5];
+		long g = state[6];
+		long h = state[7];
+		for (int t = 0; t < ROUNDS; t++) {
+			long sum1 = Long.rotateRight(e, 14) ^ Long.rotateRight(e, 18) ^ Long.rotateRight(e, 41);
+			long choice = e & f ^ ~e & g;
+			long temp1 = h + sum1 + choice + ROUND_CONSTANTS[t] + w[t];
+			long sum0 = Long.rotateRight(a, 28) ^ Long.rotateRight(a, 34) ^ Long.rotateRight(a, 39);
+			long majority = a & b ^ a & c ^ b & c;
+			long temp2 = sum0 + majority;
+			h = g;
+			g = f;
+			f = e;
+			e = d + temp1;
+			d = c;
+			c = b;
+			b = a;
+			a = temp1 + temp2;
+		}
+		state[0] += a;
+		state[1] += b;
+		state[2] += c;
+		state[3] += d;
+		state[4] += e;
+		state[5] += f;
+		state[6] += g;
+		state[7] += h;
+	}
+
+	// the largest integer whose cube is at most the value, by Newton's method
+	private static BigInteger cubeRoot(BigInteger value) {
+		BigInteger three = BigInteger.valueOf(3);
+		BigInteger root = BigInteger.ONE.shiftLeft(value.bitLength() / 3 + 1);
+		while (true) {
+			BigInteger next = root.shiftLeft(1).add(value.divide(root.multiply(root))).divide(three);
+			if (next.compareTo(root) >= 0) {
+				return root;
+			}
+			root = next;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package de.tum.cit.aet.pse;
 
-public class SimpleHashAlgorithm implements HashFunction {
+public class SimpleHashAlgorithm extends StreamingHashFunction {
+
+	private static final long serialVersionUID = 1L;
 
 	private static final int SIMPLE_HASH_MAXIMUM = 255;
 	private static final int HEXADECIMAL = 16;
@@ -12,13 +14,35 @@ public SimpleHashAlgorithm() {
 	}
 
 	@Override
-	public String calculateHashCode(String input) {
-		int hash = 0;
-		char[] charArray = input.toCharArray();
-		for (char c : charArray) {
-			hash += c;
+	public Hasher newHasher() {
+		return new SumHasher(maxLength);
+	}
+
+	/**
+	 * Sums up the chars, which may overflow without changing the result.
+	 */
+	private static final class SumHasher implements Hasher {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxLength;
+		private int hash;
+
+		private SumHasher(int maxLength) {
+			this.maxLength = maxLength;
+		}
+
+		@Override
+		public void update(char[] chars, int from, int to) {
+			for (int index = from; index < to; index++) {
+				hash += chars[index];
+			}
+		}
+
+		@Override
+		public String snapshot() {
+			return Integer.toString(hash % maxLength, HEXADECIMAL);
 		}
-		return Integer.toString(hash % maxLength, HEXADECIMAL);
 	}
 
 }
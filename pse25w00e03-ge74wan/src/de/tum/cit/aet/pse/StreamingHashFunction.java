@@ -0,0 +1,80 @@
+package de.tum.cit.aet.pse;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A hash function that consumes the chars of a document one after another
+ * with a {@link Hasher}. A String is copied and a channel is decoded into a
+ * small buffer chunk by chunk, so the document is never held as a whole and
+ * both give the same hash code. The function is serializable, so hashers
+ * that need it can be serialized as well.
+ */
+abstract class StreamingHashFunction implements HashFunction, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int HEX_DIGITS_PER_LONG = 16;
+
+	@Override
+	public abstract Hasher newHasher();
+
+	@Override
+	public String calculateHashCode(String input) {
+		Hasher hasher = newHasher();
+		hasher.update(input);
+		return hasher.finish();
+	}
+
+	@Override
+	public String calculateHashCode(ReadableByteChannel channel) throws IOException {
+		Hasher hasher = newHasher();
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+		ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+		boolean endOfInput;
+		do {
+			endOfInput = channel.read(bytes) < 0;
+			bytes.flip();
+			CoderResult result;
+			do {
+				result = decoder.decode(bytes, chars, endOfInput);
+				if (result.isError()) {
+					result.throwException();
+				}
+				update(hasher, chars);
+			} while (result.isOverflow());
+			bytes.compact();
+		} while (!endOfInput);
+		decoder.flush(chars);
+		update(hasher, chars);
+		return hasher.finish();
+	}
+
+	/**
+	 * @return the values as lowercase hexadecimal digits, 16 for each value
+	 */
+	static String toHex(long... values) {
+		char[] digits = new char[values.length * HEX_DIGITS_PER_LONG];
+		for (int index = 0; index < values.length; index++) {
+			long value = values[index];
+			for (int digit = HEX_DIGITS_PER_LONG - 1; digit >= 0; digit--) {
+				digits[index * HEX_DIGITS_PER_LONG + digit] = Character.forDigit((int) (value & 0xF), 16);
+				value >>>= 4;
+			}
+		}
+		return new String(digits);
+	}
+
+	private static void update(Hasher hasher, CharBuffer chars) {
+		hasher.update(chars.array(), 0, chars.position());
+		chars.clear();
+	}
+}
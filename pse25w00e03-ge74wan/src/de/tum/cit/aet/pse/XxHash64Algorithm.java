@@ -0,0 +1,143 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The non-cryptographic xxHash64 hash function over the UTF-16 chars of a
+ * document, in little-endian byte order. It is many times faster than
+ * SHA-512 and its 64-bit hash codes practically never collide by accident,
+ * but they can be forged and must not be used to prove integrity.
+ */
+public class XxHash64Algorithm extends StreamingHashFunction {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+	private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+	// a stripe has 32 bytes, which are 16 chars
+	private static final int STRIPE_CHARS = 16;
+
+	private final long seed;
+
+	public XxHash64Algorithm() {
+		this(0);
+	}
+
+	public XxHash64Algorithm(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public Hasher newHasher() {
+		return new XxHash64Hasher(seed);
+	}
+
+	// four chars make one 64-bit lane
+	private static long lane(char[] chars, int index) {
+		return chars[index] | (long) chars[index + 1] << 16 | (long) chars[index + 2] << 32
+				| (long) chars[index + 3] << 48;
+	}
+
+	private static long round(long accumulator, long lane) {
+		return Long.rotateLeft(accumulator + lane * PRIME_2, 31) * PRIME_1;
+	}
+
+	private static long mergeRound(long hash, long accumulator) {
+		return (hash ^ round(0, accumulator)) * PRIME_1 + PRIME_4;
+	}
+
+	private static final class XxHash64Hasher implements Hasher {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long seed;
+		private final char[] stripe = new char[STRIPE_CHARS];
+		private long accumulator1;
+		private long accumulator2;
+		private long accumulator3;
+		private long accumulator4;
+		private int stripeLength;
+		private long length;
+
+		private XxHash64Hasher(long seed) {
+			this.seed = seed;
+			accumulator1 = seed + PRIME_1 + PRIME_2;
+			accumulator2 = seed + PRIME_2;
+			accumulator3 = seed;
+			accumulator4 = seed - PRIME_1;
+		}
+
+		@Override
+		public void update(char[] chars, int from, int to) {
+			length += to - from;
+			int index = from;
+			if (stripeLength > 0) {
+				while (stripeLength < STRIPE_CHARS && index < to) {
+					stripe[stripeLength++] = chars[index++];
+				}
+				if (stripeLength < STRIPE_CHARS) {
+					return;
+				}
+				consume(stripe, 0);
+				stripeLength = 0;
+			}
+			for (; index + STRIPE_CHARS <= to; index += STRIPE_CHARS) {
+				consume(chars, index);
+			}
+			while (index < to) {
+				stripe[stripeLength++] = chars[index++];
+			}
+		}
+
+		private void consume(char[] chars, int index) {
+			accumulator1 = round(accumulator1, lane(chars, index));
+			accumulator2 = round(accumulator2, lane(chars, index + 4));
+			accumulator3 = round(accumulator3, lane(chars, index + 8));
+			accumulator4 = round(accumulator4, lane(chars, index + 12));
+		}
+
+		@Override
+		public String snapshot() {
+			long hash;
+			if (length >= STRIPE_CHARS) {
+				hash = Long.rotateLeft(accumulator1, 1) + Long.rotateLeft(accumulator2, 7)
+						+ Long.rotateLeft(accumulator3, 12) + Long.rotateLeft(accumulator4, 18);
+				hash = mergeRound(hash, accumulator1);
+				hash = mergeRound(hash, accumulator2);
+				hash = mergeRound(hash, accumulator3);
+				hash = mergeRound(hash, accumulator4);
+			} else {
+				hash = seed + PRIME_5;
+			}
+			hash += length * 2;
+
+			int index = 0;
+			for (; index + 4 <= stripeLength; index += 4) {
+				hash ^= round(0, lane(stripe, index));
+				hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+			}
+			if (index + 2 <= stripeLength) {
+				long word = stripe[index] | (long) stripe[index + 1] << 16;
+				hash ^= word * PRIME_1;
+				hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+				index += 2;
+			}
+			if (index < stripeLength) {
+				// the two bytes of the last char, low byte first
+				hash ^= (stripe[index] & 0xFF) * PRIME_5;
+				hash = Long.rotateLeft(hash, 11) * PRIME_1;
+				hash ^= (stripe[index] >>> 8) * PRIME_5;
+				hash = Long.rotateLeft(hash, 11) * PRIME_1;
+			}
+
+			hash ^= hash >>> 33;
+			hash *= PRIME_2;
+			hash ^= hash >>> 29;
+			hash *= PRIME_3;
+			hash ^= hash >>> 32;
+			return toHex(hash);
+		}
+	}
+
+}
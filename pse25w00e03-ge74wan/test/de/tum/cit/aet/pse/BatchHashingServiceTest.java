@@ -0,0 +1,168 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchHashingServiceTest {
+
+    private final CountingHashing hashing = new CountingHashing();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDuplicatesAreHashedOnce() throws IOException {
+        Path first = Files.writeString(directory.resolve("first.txt"), "Exam 1");
+        Path second = Files.writeString(directory.resolve("second.txt"), "Exam 2");
+        Path sameAsFirst = directory.resolve("sub").resolve("..").resolve("first.txt");
+        List<BatchHashingService.HashResult> results = new ArrayList<>();
+
+        try (BatchHashingService service = new BatchHashingService(hashing, 4)) {
+            service.hashFiles(List.of(first, second, first, sameAsFirst, second), results::add);
+        }
+
+        assertEquals(2, hashing.hashedFiles.get());
+        Map<Path, String> hashes = hashes(results);
+        assertEquals(2, hashes.size());
+        assertEquals(hashing.hashDocument("Exam 1"), hashes.get(first.toAbsolutePath()));
+        assertEquals(hashing.hashDocument("Exam 2"), hashes.get(second.toAbsolutePath()));
+    }
+
+    @Test
+    void testChangedFileIsHashedAgainInNextCall() throws IOException {
+        Path file = Files.writeString(directory.resolve("exam.txt"), "Exam 1");
+        List<BatchHashingService.HashResult> results = new ArrayList<>();
+
+        try (BatchHashingService service = new BatchHashingService(hashing, 2)) {
+            service.hashFiles(List.of(file), results::add);
+            Files.writeString(file, "Exam 1, corrected");
+            service.hashFiles(List.of(file), results::add);
+        }
+
+        assertEquals(2, results.size());
+        assertEquals(hashing.hashDocument("Exam 1, corrected"), results.get(1).getHash());
+    }
+
+    @Test
+    void testUnreadableFileIsReportedAsFailedResult() throws IOException {
+        Path readable = Files.writeString(directory.resolve("exam.txt"), "Exam 1");
+        Path missing = directory.resolve("missing.txt");
+        Path subdirectory = Files.createDirectory(directory.resolve("sub"));
+        List<BatchHashingService.HashResult> results = new ArrayList<>();
+
+        try (BatchHashingService service = new BatchHashingService(hashing, 2)) {
+            service.hashFiles(List.of(missing, readable, subdirectory), results::add);
+        }
+
+        assertEquals(3, results.size());
+        for (BatchHashingService.HashResult result : results) {
+            if (result.getPath().equals(readable.toAbsolutePath())) {
+                assertTrue(result.isSuccessful());
+                assertEquals(hashing.hashDocument("Exam 1"), result.getHash());
+            } else {
+                assertFalse(result.isSuccessful());
+                assertNull(result.getHash());
+                assertInstanceOf(IOException.class, result.getFailure());
+            }
+        }
+    }
+
+    /*
+     * Walks a tree of 200 files with two threads, each hashing slowly, and
+     * expects a result per file, passed to the consumer one at a time while
+     * at most two files are hashed at once.
+     */
+    @Test
+    void testHashDirectoryStreamsResults() throws IOException {
+        Map<Path, String> expected = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            Path subdirectory = Files.createDirectories(directory.resolve("exam-" + i % 7).resolve("part-" + i % 3));
+            String document = "Answer " + i;
+            expected.put(Files.writeString(subdirectory.resolve(i + ".txt"), document).toAbsolutePath(),
+                    hashing.hashDocument(document));
+        }
+        hashing.delayMillis = 1;
+        AtomicInteger consuming = new AtomicInteger();
+        AtomicInteger overlappingCalls = new AtomicInteger();
+        List<BatchHashingService.HashResult> results = new ArrayList<>();
+
+        try (BatchHashingService service = new BatchHashingService(hashing, 2)) {
+            service.hashDirectory(directory, result -> {
+                if (consuming.incrementAndGet() > 1) {
+                    overlappingCalls.incrementAndGet();
+                }
+                results.add(result);
+                consuming.decrementAndGet();
+            });
+        }
+
+        assertEquals(expected, hashes(results));
+        assertEquals(0, overlappingCalls.get());
+        assertTrue(hashing.maxConcurrent.get() <= 2);
+    }
+
+    @Test
+    void testHashDirectoryThrowsIfDirectoryIsMissing() {
+        try (BatchHashingService service = new BatchHashingService(hashing, 2)) {
+            assertThrows(NoSuchFileException.class,
+                    () -> service.hashDirectory(directory.resolve("missing"), result -> fail()));
+        }
+    }
+
+    private static Map<Path, String> hashes(List<BatchHashingService.HashResult> results) {
+        Map<Path, String> hashes = new HashMap<>();
+        for (BatchHashingService.HashResult result : results) {
+            assertTrue(result.isSuccessful(), result::toString);
+            assertNull(hashes.put(result.getPath(), result.getHash()), "hashed twice: " + result.getPath());
+        }
+        return hashes;
+    }
+
+    /**
+     * Counts the hashed files and how many of them were hashed at once.
+     */
+    private static final class CountingHashing extends Hashing {
+
+        private final AtomicInteger hashedFiles = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private volatile long delayMillis;
+
+        private CountingHashing() {
+            super(new XxHash64Algorithm());
+        }
+
+        @Override
+        public String hashDocument(String document) {
+            return getImplementation().calculateHashCode(document);
+        }
+
+        @Override
+        public String hashDocument(Path path) throws IOException {
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+                String hash = super.hashDocument(path);
+                hashedFiles.incrementAndGet();
+                return hash;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
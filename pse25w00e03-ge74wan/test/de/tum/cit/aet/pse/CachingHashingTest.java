@@ -0,0 +1,209 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingHashingTest {
+
+    private static final FileTime AN_HOUR_AGO = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+
+    private final CountingHashing hashing = new CountingHashing(new XxHash64Algorithm());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        CachingHashing caching = new CachingHashing(hashing, 2);
+        caching.hashDocument("Exam 1");
+        caching.hashDocument("Exam 2");
+        caching.hashDocument("Exam 1");
+        caching.hashDocument("Exam 3");
+
+        assertEquals(2, caching.size());
+        assertEquals(1, caching.getEvictionCount());
+        assertEquals(3, hashing.hashedDocuments.get());
+        caching.hashDocument("Exam 1");
+        caching.hashDocument("Exam 3");
+        assertEquals(3, hashing.hashedDocuments.get());
+        caching.hashDocument("Exam 2");
+        assertEquals(4, hashing.hashedDocuments.get());
+    }
+
+    @Test
+    void testChangedFileIsHashedAgain() throws IOException {
+        CachingHashing caching = new CachingHashing(hashing);
+        Path file = oldFile("exam.txt", "Exam 1");
+        String hash = caching.hashDocument(file);
+        assertEquals(hash, caching.hashDocument(file));
+        assertEquals(1, hashing.hashedFiles.get());
+
+        // same size, other modification time
+        Files.writeString(file, "Exam 2");
+        Files.setLastModifiedTime(file, FileTime.from(AN_HOUR_AGO.toInstant().plusSeconds(1)));
+        assertEquals(hashing.hashDocument("Exam 2"), caching.hashDocument(file));
+        assertEquals(2, hashing.hashedFiles.get());
+
+        // other size, same modification time
+        Files.writeString(file, "Exam 22");
+        Files.setLastModifiedTime(file, FileTime.from(AN_HOUR_AGO.toInstant().plusSeconds(1)));
+        assertEquals(hashing.hashDocument("Exam 22"), caching.hashDocument(file));
+        assertEquals(3, hashing.hashedFiles.get());
+
+        // same size and modification time, but another file moved in its place
+        Path replacement = Files.writeString(directory.resolve("replacement.txt"), "Exam 33");
+        Files.setLastModifiedTime(replacement, FileTime.from(AN_HOUR_AGO.toInstant().plusSeconds(1)));
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(hashing.hashDocument("Exam 33"), caching.hashDocument(file));
+        assertEquals(4, hashing.hashedFiles.get());
+        assertEquals(hashing.hashDocument("Exam 33"), caching.hashDocument(file));
+        assertEquals(4, hashing.hashedFiles.get());
+    }
+
+    @Test
+    void testRecentlyModifiedFileIsNotCached() throws IOException {
+        CachingHashing caching = new CachingHashing(hashing);
+        Path file = Files.writeString(directory.resolve("exam.txt"), "Exam 1");
+
+        caching.hashDocument(file);
+        caching.hashDocument(file);
+        assertEquals(2, hashing.hashedFiles.get());
+        assertEquals(0, caching.size());
+
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(3)));
+        caching.hashDocument(file);
+        caching.hashDocument(file);
+        assertEquals(3, hashing.hashedFiles.get());
+        assertEquals(1, caching.size());
+    }
+
+    @Test
+    void testSavedCacheIsLoadedAgain() throws IOException {
+        Path first = oldFile("first.txt", "Exam 1");
+        Path second = oldFile("second.txt", "Exam 2");
+        Path cacheFile = directory.resolve("hashes.cache");
+        CachingHashing caching = new CachingHashing(hashing);
+        caching.hashDocument(first);
+        caching.hashDocument(second);
+        caching.hashDocument("not saved");
+        caching.save(cacheFile);
+
+        CachingHashing restarted = new CachingHashing(hashing);
+        restarted.load(cacheFile);
+        assertEquals(2, restarted.size());
+        assertEquals(hashing.hashDocument("Exam 1"), restarted.hashDocument(first));
+        assertEquals(hashing.hashDocument("Exam 2"), restarted.hashDocument(second));
+        assertEquals(2, hashing.hashedFiles.get());
+        assertEquals(2, restarted.getHitCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count(), "the temporary file is left behind");
+        }
+    }
+
+    @Test
+    void testSavingReplacesCacheFile() throws IOException {
+        Path file = oldFile("exam.txt", "Exam 1");
+        Path cacheFile = directory.resolve("hashes.cache");
+        CachingHashing caching = new CachingHashing(hashing);
+        caching.hashDocument(file);
+        caching.save(cacheFile);
+        caching.invalidateAll();
+        caching.save(cacheFile);
+
+        CachingHashing restarted = new CachingHashing(hashing);
+        restarted.load(cacheFile);
+        assertEquals(0, restarted.size());
+    }
+
+    @Test
+    void testLoadIgnoresCacheOfAnotherHashing() throws IOException {
+        Path file = oldFile("exam.txt", "Exam 1");
+        Path cacheFile = directory.resolve("hashes.cache");
+        CachingHashing caching = new CachingHashing(hashing);
+        caching.hashDocument(file);
+        caching.save(cacheFile);
+
+        CachingHashing otherFunction = new CachingHashing(new CountingHashing(new Murmur3HashAlgorithm()));
+        otherFunction.load(cacheFile);
+        assertEquals(0, otherFunction.size());
+        CachingHashing otherHashing = new CachingHashing(new PreviewHashing());
+        otherHashing.load(cacheFile);
+        assertEquals(0, otherHashing.size());
+    }
+
+    @Test
+    void testLoadRejectsTruncatedCache() throws IOException {
+        Path cacheFile = directory.resolve("hashes.cache");
+        CachingHashing caching = new CachingHashing(hashing);
+        caching.hashDocument(oldFile("exam.txt", "Exam 1"));
+        caching.save(cacheFile);
+        byte[] saved = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(saved, saved.length - 4));
+
+        assertThrows(IOException.class, () -> new CachingHashing(hashing).load(cacheFile));
+        new CachingHashing(hashing).load(directory.resolve("missing.cache"));
+    }
+
+    @Test
+    void testHitRate() throws IOException {
+        CachingHashing caching = new CachingHashing(hashing);
+        assertEquals(0, caching.getHitRate(), 0);
+        Path file = oldFile("exam.txt", "Exam 1");
+
+        caching.hashDocument(file);
+        caching.hashDocument(file);
+        caching.hashDocument(file);
+        caching.hashDocument("Exam 1");
+
+        assertEquals(2, caching.getHitCount());
+        assertEquals(2, caching.getMissCount());
+        assertEquals(0.5, caching.getHitRate(), 1e-9);
+        caching.invalidateAll();
+        caching.hashDocument(file);
+        assertEquals(3, caching.getMissCount());
+    }
+
+    private Path oldFile(String name, String content) throws IOException {
+        Path file = Files.writeString(directory.resolve(name), content);
+        Files.setLastModifiedTime(file, AN_HOUR_AGO);
+        return file;
+    }
+
+    /**
+     * Counts how many documents and files were really hashed.
+     */
+    private static final class CountingHashing extends Hashing {
+
+        private final AtomicInteger hashedDocuments = new AtomicInteger();
+        private final AtomicInteger hashedFiles = new AtomicInteger();
+
+        private CountingHashing(HashFunction hashFunction) {
+            super(hashFunction);
+        }
+
+        @Override
+        public String hashDocument(String document) {
+            hashedDocuments.incrementAndGet();
+            return getImplementation().calculateHashCode(document);
+        }
+
+        @Override
+        public String hashDocument(Path path) throws IOException {
+            hashedFiles.incrementAndGet();
+            return super.hashDocument(path);
+        }
+    }
+}
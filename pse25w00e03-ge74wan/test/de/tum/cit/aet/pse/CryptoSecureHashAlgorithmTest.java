@@ -0,0 +1,153 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoSecureHashAlgorithmTest {
+
+    private static final String PAIR = "\uD83D\uDE00";
+    // how many chars CryptoSecureHashAlgorithm encodes at a time
+    private static final int CHUNK_SIZE = 4096;
+
+    private final CryptoSecureHashAlgorithm cryptoSecure = new CryptoSecureHashAlgorithm();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSurrogatePairAtChunkBoundaries() {
+        for (int chunks = 1; chunks <= 2; chunks++) {
+            for (int index = chunks * CHUNK_SIZE - 3; index <= chunks * CHUNK_SIZE + 1; index++) {
+                String document = "a".repeat(index) + PAIR + "\u00E9\u20AC";
+                assertEquals(expectedHashCode(document), cryptoSecure.calculateHashCode(document),
+                        "pair at " + index);
+            }
+        }
+    }
+
+    @Test
+    void testLoneSurrogates() {
+        List<String> documents = List.of(
+                "\uD83D",
+                "\uDE00",
+                "a\uD83Db",
+                "a\uDE00\uD83D",
+                "a".repeat(CHUNK_SIZE - 1) + "\uD83D",
+                "a".repeat(CHUNK_SIZE - 1) + "\uD83Db",
+                "a".repeat(CHUNK_SIZE - 1) + "\uD83D\uD83D\uDE00",
+                "a".repeat(CHUNK_SIZE) + "\uDE00",
+                "a".repeat(CHUNK_SIZE - 1) + PAIR + "\uDE00");
+        for (String document : documents) {
+            assertEquals(expectedHashCode(document), cryptoSecure.calculateHashCode(document));
+        }
+    }
+
+    @Test
+    void testRandomDocuments() {
+        char[] chars = {'a', '\u00E9', '\u20AC', '\uD83D', '\uDE00'};
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            StringBuilder document = new StringBuilder();
+            int length = random.nextInt(3 * CHUNK_SIZE);
+            for (int j = 0; j < length; j++) {
+                document.append(chars[random.nextInt(chars.length)]);
+            }
+            assertEquals(expectedHashCode(document.toString()), cryptoSecure.calculateHashCode(document.toString()));
+        }
+    }
+
+    /*
+     * Hashes a file above the mapping threshold whose code points are split
+     * between the chunks it is copied in, and compares it with the hash code
+     * of its bytes and of the decoded document.
+     */
+    @Test
+    void testLargeFileIsMapped() throws IOException {
+        StringBuilder document = new StringBuilder();
+        while (document.length() < (1 << 20)) {
+            document.append("Answer ").append(document.length()).append(": \u00E9\u20AC").append(PAIR).append('\n');
+        }
+        Path file = Files.writeString(directory.resolve("exam.txt"), document);
+        assertTrue(Files.size(file) > 1 << 20);
+
+        EnterpriseHashing hashing = new EnterpriseHashing();
+        String hash = hashing.hashDocument(file);
+        assertEquals(toHex(sha512(Files.readAllBytes(file))), hash);
+        assertEquals(hashing.hashDocument(document.toString()), hash);
+    }
+
+    @Test
+    void testMalformedUtf8IsRejected() throws IOException {
+        List<byte[]> malformed = List.of(
+                new byte[] {'a', (byte) 0xC3},
+                new byte[] {(byte) 0x80},
+                new byte[] {(byte) 0xC0, (byte) 0xAF},
+                new byte[] {(byte) 0xE0, (byte) 0x80, (byte) 0xAF},
+                new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+                new byte[] {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+                new byte[] {(byte) 0xF0, (byte) 0x9F, 'a', (byte) 0x80},
+                new byte[] {(byte) 0xFF});
+        List<HashFunction> hashFunctions = List.of(cryptoSecure, new XxHash64Algorithm(), new Murmur3HashAlgorithm(),
+                new SimpleHashAlgorithm(), String::valueOf);
+        for (HashFunction hashFunction : hashFunctions) {
+            for (byte[] bytes : malformed) {
+                assertThrows(MalformedInputException.class, () -> hashFunction.calculateHashCode(
+                        Channels.newChannel(new ByteArrayInputStream(bytes))));
+            }
+        }
+        MerkleHashing merkleHashing = new MerkleHashing(cryptoSecure, 4, ForkJoinPool.commonPool());
+        for (byte[] bytes : malformed) {
+            assertThrows(MalformedInputException.class, () -> merkleHashing.hashDocument(
+                    new ByteArrayInputStream(bytes)));
+        }
+
+        // the state of the thread is reset, so the next document is hashed as usual
+        byte[] valid = "Exam \u00E9".getBytes(StandardCharsets.UTF_8);
+        assertEquals(toHex(sha512(valid)), cryptoSecure.calculateHashCode(
+                Channels.newChannel(new ByteArrayInputStream(valid))));
+    }
+
+    @Test
+    void testMalformedLargeFileIsRejected() throws IOException {
+        byte[] bytes = "a".repeat(3 << 20).getBytes(StandardCharsets.US_ASCII);
+        bytes[2 << 20] = (byte) 0xE2;
+        Path file = Files.write(directory.resolve("exam.txt"), bytes);
+
+        assertThrows(MalformedInputException.class, () -> new EnterpriseHashing().hashDocument(file));
+        bytes[bytes.length - 1] = (byte) 0xC3;
+        bytes[2 << 20] = 'a';
+        Files.write(file, bytes);
+        assertThrows(MalformedInputException.class, () -> new EnterpriseHashing().hashDocument(file));
+    }
+
+    private static String expectedHashCode(String document) {
+        return toHex(sha512(document.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String toHex(byte[] hash) {
+        return CryptoSecureHashAlgorithm.toHex(hash);
+    }
+
+    private static byte[] sha512(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-512").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
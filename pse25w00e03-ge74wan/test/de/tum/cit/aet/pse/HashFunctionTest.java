@@ -0,0 +1,90 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashFunctionTest {
+
+    private static final String QUICK_FOX = "The quick brown fox jumps over the lazy dog";
+    private static final String NON_ASCII = "\u00E9\uD83D\uDE00";
+
+    /*
+     * The expected hash codes were calculated by reference implementations
+     * over the UTF-16LE bytes of the documents.
+     */
+    @Test
+    void testXxHash64KnownAnswers() {
+        HashFunction xxHash64 = new XxHash64Algorithm();
+        assertEquals("ef46db3751d8e999", xxHash64.calculateHashCode(""));
+        assertEquals("e513e02c99167f96", xxHash64.calculateHashCode("a"));
+        assertEquals("aff0f2a2f8b32731", xxHash64.calculateHashCode("abc"));
+        assertEquals("d576c8ebebc5e882", xxHash64.calculateHashCode("Hello, World!"));
+        assertEquals("b50690f4310e490e", xxHash64.calculateHashCode(QUICK_FOX));
+        assertEquals("2eef81596c697fa3", xxHash64.calculateHashCode(NON_ASCII));
+
+        HashFunction seeded = new XxHash64Algorithm(42);
+        assertEquals("98b1582b0977e704", seeded.calculateHashCode(""));
+        assertEquals("1f7472082943dcac", seeded.calculateHashCode("abc"));
+        assertEquals("bad4b36acca785e7", seeded.calculateHashCode(QUICK_FOX));
+    }
+
+    @Test
+    void testMurmur3KnownAnswers() {
+        HashFunction murmur3 = new Murmur3HashAlgorithm();
+        assertEquals("00000000000000000000000000000000", murmur3.calculateHashCode(""));
+        assertEquals("bd984e0b5098a6967d6754c7bfc978b2", murmur3.calculateHashCode("a"));
+        assertEquals("e34d9eb074a1250c2be09e39dd667177", murmur3.calculateHashCode("abc"));
+        assertEquals("8cbb0a141e89359ebb2ac7a6075edf29", murmur3.calculateHashCode("Hello, World!"));
+        assertEquals("4cae51b5316602c01c7c5642843e5fe7", murmur3.calculateHashCode(QUICK_FOX));
+        assertEquals("0fe1d65d7b4e1046c28b344c2c7adb31", murmur3.calculateHashCode(NON_ASCII));
+
+        HashFunction seeded = new Murmur3HashAlgorithm(42);
+        assertEquals("23851bfa7da72af0b9cb11da106601d1", seeded.calculateHashCode(""));
+        assertEquals("8207bf7d1be2461f9516761f0c39ff67", seeded.calculateHashCode("abc"));
+        assertEquals("1dc34b5287834b7609834275eec5ef02", seeded.calculateHashCode(QUICK_FOX));
+    }
+
+    /*
+     * Hashes exam documents of the benchmark, which differ in a few chars
+     * only. The sum of the simple hash function takes at most 509 values
+     * (the remainders of 255 with either sign), so nearly all collide.
+     */
+    @Test
+    void testCollisionsOfExamDocuments() {
+        int documents = 50_000;
+        assertTrue(HashingBenchmark.countCollisions(new SimpleHashAlgorithm(), documents) >= documents - 509);
+        assertEquals(0, HashingBenchmark.countCollisions(new XxHash64Algorithm(), documents));
+        assertEquals(0, HashingBenchmark.countCollisions(new Murmur3HashAlgorithm(), documents));
+    }
+
+    /*
+     * Changes a single char of random documents and expects about half of
+     * the bits of the hash code to flip on average.
+     */
+    @Test
+    void testSingleCharChangeFlipsHalfTheBits() {
+        Random random = new Random(11);
+        for (HashFunction hashFunction : List.of(new XxHash64Algorithm(), new Murmur3HashAlgorithm())) {
+            long flippedBits = 0;
+            int bits = 0;
+            for (int i = 0; i < 2_000; i++) {
+                char[] document = new char[1 + random.nextInt(100)];
+                for (int j = 0; j < document.length; j++) {
+                    document[j] = (char) ('a' + random.nextInt(26));
+                }
+                String hashCode = hashFunction.calculateHashCode(new String(document));
+                document[random.nextInt(document.length)] ^= (char) (1 << random.nextInt(5));
+                String changedHashCode = hashFunction.calculateHashCode(new String(document));
+                flippedBits += new BigInteger(hashCode, 16).xor(new BigInteger(changedHashCode, 16)).bitCount();
+                bits += hashCode.length() * 4;
+            }
+            double flippedShare = (double) flippedBits / bits;
+            assertTrue(flippedShare > 0.48 && flippedShare < 0.52, "flipped " + flippedShare);
+        }
+    }
+}
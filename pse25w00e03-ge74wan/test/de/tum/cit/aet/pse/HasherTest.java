@@ -0,0 +1,138 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HasherTest {
+
+    private static final String PAIR = "\uD83D\uDE00";
+    private static final char[] CHARS = {'a', 'b', '\u00E9', '\u20AC', '\uD83D', '\uDE00'};
+
+    private final MerkleHashing merkleHashing = new MerkleHashing(new XxHash64Algorithm(), 4,
+            ForkJoinPool.commonPool());
+
+    /*
+     * Feeds random documents in random pieces, which also split surrogate
+     * pairs, and compares every snapshot with the hash code of everything
+     * fed so far.
+     */
+    @Test
+    void testSnapshotEqualsHashCodeOfWholeDocument() {
+        Random random = new Random(5);
+        for (HashFunction hashFunction : hashFunctions()) {
+            for (int i = 0; i < 20; i++) {
+                String document = randomDocument(random, random.nextInt(300));
+                Hasher hasher = hashFunction.newHasher();
+                assertEquals(hashFunction.calculateHashCode(""), hasher.snapshot());
+                int fed = 0;
+                while (fed < document.length()) {
+                    int end = Math.min(document.length(), fed + 1 + random.nextInt(40));
+                    hasher.update(document.substring(fed, end));
+                    fed = end;
+                    assertEquals(hashFunction.calculateHashCode(document.substring(0, fed)), hasher.snapshot());
+                }
+                assertEquals(hashFunction.calculateHashCode(document), hasher.finish());
+            }
+        }
+    }
+
+    @Test
+    void testMerkleSnapshotEqualsHashDocument() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            String document = randomDocument(random, random.nextInt(100));
+            Hasher hasher = merkleHashing.newHasher();
+            int fed = 0;
+            while (fed < document.length()) {
+                int end = Math.min(document.length(), fed + 1 + random.nextInt(9));
+                hasher.update(document.substring(fed, end));
+                fed = end;
+                assertEquals(merkleHashing.hashDocument(document.substring(0, fed)), hasher.snapshot());
+            }
+            assertEquals(merkleHashing.hashDocument(document), hasher.finish());
+        }
+    }
+
+    /*
+     * Serializes the hashers between a high and a low surrogate and resumes
+     * hashing with the copy.
+     */
+    @Test
+    void testSerializedHasherResumes() throws IOException, ClassNotFoundException {
+        String first = "Exam 1: answered " + PAIR.charAt(0);
+        String second = PAIR.charAt(1) + " and more text than fits into a single block of the hash functions";
+        for (HashFunction hashFunction : hashFunctions()) {
+            Hasher hasher = hashFunction.newHasher();
+            hasher.update(first);
+            Hasher resumed = copy(hasher);
+            resumed.update(second);
+            assertEquals(hashFunction.calculateHashCode(first + second), resumed.finish());
+            hasher.update(second);
+            assertEquals(hashFunction.calculateHashCode(first + second), hasher.finish());
+        }
+        Hasher hasher = merkleHashing.newHasher();
+        hasher.update(first);
+        Hasher resumed = copy(hasher);
+        resumed.update(second);
+        assertEquals(merkleHashing.hashDocument(first + second), resumed.finish());
+    }
+
+    @Test
+    void testBufferingHasherNeedsSerializableHashFunction() {
+        HashFunction notSerializable = String::valueOf;
+        assertThrows(IllegalArgumentException.class, notSerializable::newHasher);
+
+        HashFunction reversed = new ReversedHashFunction();
+        Hasher hasher = reversed.newHasher();
+        hasher.update("ab" + PAIR.charAt(0));
+        assertEquals("\uD83Dba", hasher.snapshot());
+    }
+
+    private static List<HashFunction> hashFunctions() {
+        return List.of(new CryptoSecureHashAlgorithm(), new XxHash64Algorithm(), new XxHash64Algorithm(42),
+                new Murmur3HashAlgorithm(), new Murmur3HashAlgorithm(42), new SimpleHashAlgorithm(),
+                new ReversedHashFunction());
+    }
+
+    private static String randomDocument(Random random, int length) {
+        StringBuilder document = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            document.append(CHARS[random.nextInt(CHARS.length)]);
+        }
+        return document.toString();
+    }
+
+    private static Hasher copy(Hasher hasher) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(hasher);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Hasher) input.readObject();
+        }
+    }
+
+    /**
+     * A hash function without a hasher of its own, so it gets a buffering one.
+     */
+    private static final class ReversedHashFunction implements HashFunction, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String calculateHashCode(String input) {
+            return new StringBuilder(input).reverse().toString();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleHashingTest {
+
+    private static final int CHUNK_SIZE = 4;
+    private static final String PAIR = "\uD83D\uDE00";
+    private static final char[] CHARS = {'a', 'b', '\u00E9', '\uD83D', '\uDE00'};
+
+    private final MerkleHashing hashing = new MerkleHashing(new XxHash64Algorithm(), CHUNK_SIZE,
+            ForkJoinPool.commonPool());
+
+    /*
+     * Puts a surrogate pair at every offset of documents up to three chunks
+     * long, so a chunk boundary is moved behind the pair at every position,
+     * including the end of the document.
+     */
+    @Test
+    void testStringAndChannelAgreeAtSurrogateBoundaries() throws IOException {
+        for (int length = 0; length <= 3 * CHUNK_SIZE; length++) {
+            String plain = "a".repeat(length);
+            assertEquals(hashing.hashDocument(plain), hashChannel(plain));
+            for (int offset = 0; offset + PAIR.length() <= length; offset++) {
+                String document = "a".repeat(offset) + PAIR + "b".repeat(length - offset - PAIR.length());
+                assertEquals(hashing.hashDocument(document), hashChannel(document), document);
+            }
+        }
+        for (int count = 1; count <= 2 * CHUNK_SIZE; count++) {
+            assertEquals(hashing.hashDocument(PAIR.repeat(count)), hashChannel(PAIR.repeat(count)));
+            assertEquals(hashing.hashDocument("a" + PAIR.repeat(count)), hashChannel("a" + PAIR.repeat(count)));
+        }
+    }
+
+    @Test
+    void testStringAndChannelAgreeOnRandomDocuments() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder document = new StringBuilder();
+            int length = random.nextInt(20 * CHUNK_SIZE);
+            while (document.length() < length) {
+                document.append(random.nextBoolean() ? PAIR : String.valueOf(CHARS[random.nextInt(3)]));
+            }
+            assertEquals(hashing.hashDocument(document.toString()), hashChannel(document.toString()));
+        }
+    }
+
+    /*
+     * Overwrites random ranges with random chars, which make and break
+     * surrogate pairs, and expects the rehashed tree to have the root of a
+     * tree built from scratch.
+     */
+    @Test
+    void testRehashEqualsRebuild() {
+        Random random = new Random(7);
+        char[] document = new char[50 * CHUNK_SIZE + 1];
+        for (int index = 0; index < document.length; index++) {
+            document[index] = CHARS[random.nextInt(CHARS.length)];
+        }
+        MerkleTree tree = hashing.buildTree(new String(document));
+        for (int i = 0; i < 1_000; i++) {
+            int from = random.nextInt(document.length);
+            int to = Math.min(document.length, from + random.nextInt(2 * CHUNK_SIZE + 1));
+            for (int index = from; index < to; index++) {
+                document[index] = CHARS[random.nextInt(CHARS.length)];
+            }
+            String changed = new String(document);
+            MerkleTree rebuilt = hashing.buildTree(changed);
+            assertEquals(rebuilt.getRootHash(), tree.rehash(changed, from, to));
+            assertEquals(rebuilt.getChunkCount(), tree.getChunkCount());
+        }
+    }
+
+    private String hashChannel(String document) throws IOException {
+        return hashing.hashDocument(Channels.newChannel(
+                new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,323 @@
+package de.tum.cit.aet.pse;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds shortest routes on a {@link RoadGrid} with an A* search.
+ * <p>
+ * Every found route is cached cell by cell for its destination, so later
+ * queries from any cell on an already found route to the same destination
+ * are answered from the cache. Positions without a route are cached as
+ * well. The cache is split into stripes with a lock each, so cached queries
+ * of many threads do not wait for each other. Searches reuse scratch arrays
+ * sized to the grid, so they do not allocate per visited cell, and run one
+ * at a time.
+ * <p>
+ * Of the cells with the same estimated route length, the search expands the
+ * one closest to the destination first. On open roads, where many cells lie
+ * on a shortest route, it then follows one of them instead of expanding all.
+ */
+public class GridRouter {
+
+    /**
+     * Returned by {@link #nextStep} if the position is the destination.
+     */
+    public static final int REACHED = -1;
+    /**
+     * Returned by {@link #nextStep} if a position is not on a road or the
+     * destination cannot be reached.
+     */
+    public static final int NO_ROUTE = -2;
+
+    private static final int DEFAULT_CACHE_SIZE = 1_000_000;
+    private static final int CACHE_STRIPE_BITS = 4;
+    private static final int CACHE_STRIPES = 1 << CACHE_STRIPE_BITS;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    // steps for the directions in their declaration order: NORTH, EAST, SOUTH, WEST
+    private static final int[] STEP_X = {0, 1, 0, -1};
+    private static final int[] STEP_Y = {1, 0, -1, 0};
+    private static final int CELL_BITS = 32;
+
+    private final RoadGrid grid;
+    private final int width;
+    private final CacheStripe[] routeCache;
+
+    // guards the scratch arrays of the search
+    private final Object searchLock;
+    private final int[] cost;
+    private final int[] reachedInSearch;
+    private final byte[] arrivalDirection;
+    private final CellHeap open;
+    private int search;
+    private int expandedCells;
+
+    public GridRouter(RoadGrid grid) {
+        this(grid, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param grid      the roads to route on
+     * @param cacheSize the maximum number of cached (cell, destination) steps
+     */
+    public GridRouter(RoadGrid grid, int cacheSize) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.routeCache = new CacheStripe[CACHE_STRIPES];
+        for (int stripe = 0; stripe < CACHE_STRIPES; stripe++) {
+            routeCache[stripe] = new CacheStripe(Math.max(1, cacheSize / CACHE_STRIPES));
+        }
+        this.searchLock = new Object();
+        int cells = grid.getWidth() * grid.getHeight();
+        this.cost = new int[cells];
+        this.reachedInSearch = new int[cells];
+        this.arrivalDirection = new byte[cells];
+        this.open = new CellHeap();
+    }
+
+    /**
+     * Returns the direction of the first step of a shortest route.
+     *
+     * @param x           the current x-position
+     * @param y           the current y-position
+     * @param destination the destination to reach
+     * @return the direction to drive in, or {@code null} if the destination is reached
+     * @throws IllegalArgumentException if a position is not on a road or the
+     *                                  destination cannot be reached
+     */
+    public Direction nextDirection(int x, int y, Destination destination) {
+        int step = nextStep(x, y, destination);
+        if (step == NO_ROUTE) {
+            throw new IllegalArgumentException("No route from (" + x + ", " + y + ") to " + destination.getName());
+        }
+        return step == REACHED ? null : DIRECTIONS[step];
+    }
+
+    /**
+     * Returns the first step of a shortest route without throwing, for
+     * callers that route many rides at once.
+     *
+     * @param x           the current x-position
+     * @param y           the current y-position
+     * @param destination the destination to reach
+     * @return the ordinal of the {@link Direction} to drive in, {@link #REACHED}
+     * or {@link #NO_ROUTE}
+     */
+    public int nextStep(int x, int y, Destination destination) {
+        if (x == destination.getX() && y == destination.getY()) {
+            return REACHED;
+        }
+        if (!grid.isRoad(x, y) || !grid.isRoad(destination.getX(), destination.getY())) {
+            return NO_ROUTE;
+        }
+        int start = cell(x, y);
+        int goal = cell(destination.getX(), destination.getY());
+        long key = cacheKey(start, goal);
+        Byte cached = stripe(key).get(key);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (searchLock) {
+            // another thread may have found the route while this one waited
+            cached = stripe(key).get(key);
+            if (cached != null) {
+                return cached;
+            }
+            if (!search(start, goal)) {
+                stripe(key).put(key, (byte) NO_ROUTE);
+                return NO_ROUTE;
+            }
+
+            int firstStep = REACHED;
+            int current = goal;
+            while (current != start) {
+                int direction = arrivalDirection[current];
+                int previous = current - STEP_X[direction] - STEP_Y[direction] * width;
+                long previousKey = cacheKey(previous, goal);
+                stripe(previousKey).put(previousKey, (byte) direction);
+                firstStep = direction;
+                current = previous;
+            }
+            return firstStep;
+        }
+    }
+
+    public int getCachedSteps() {
+        int steps = 0;
+        for (CacheStripe stripe : routeCache) {
+            steps += stripe.size();
+        }
+        return steps;
+    }
+
+    /**
+     * @return how many cells the last search expanded
+     */
+    int getExpandedCells() {
+        synchronized (searchLock) {
+            return expandedCells;
+        }
+    }
+
+    private CacheStripe stripe(long key) {
+        // the top bits of a Fibonacci hash pick the stripe
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return routeCache[hash >>> (Integer.SIZE - CACHE_STRIPE_BITS)];
+    }
+
+    private boolean search(int start, int goal) {
+        if (++search == 0) {
+            Arrays.fill(reachedInSearch, 0);
+            search = 1;
+        }
+        int goalX = goal % width;
+        int goalY = goal / width;
+        open.clear();
+        expandedCells = 0;
+        reachedInSearch[start] = search;
+        cost[start] = 0;
+        int startDistance = distance(start, goalX, goalY);
+        open.add(priority(startDistance, startDistance), start);
+
+        while (!open.isEmpty()) {
+            long priority = open.peekPriority();
+            int current = open.poll();
+            if (current == goal) {
+                return true;
+            }
+            // skip entries that were superseded by a cheaper way to the same cell
+            if ((int) (priority >>> Integer.SIZE) - (int) priority > cost[current]) {
+                continue;
+            }
+            expandedCells++;
+            int currentX = current % width;
+            int currentY = current / width;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                int nextX = currentX + STEP_X[direction];
+                int nextY = currentY + STEP_Y[direction];
+                if (!grid.isRoad(nextX, nextY)) {
+                    continue;
+                }
+                int next = cell(nextX, nextY);
+                int nextCost = cost[current] + 1;
+                if (reachedInSearch[next] != search || nextCost < cost[next]) {
+                    reachedInSearch[next] = search;
+                    cost[next] = nextCost;
+                    arrivalDirection[next] = (byte) direction;
+                    int remaining = distance(next, goalX, goalY);
+                    open.add(priority(nextCost + remaining, remaining), next);
+                }
+            }
+        }
+        return false;
+    }
+
+    private int cell(int x, int y) {
+        return y * width + x;
+    }
+
+    // the Manhattan distance never overestimates on a grid with four directions
+    private int distance(int cell, int goalX, int goalY) {
+        return Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY);
+    }
+
+    // orders by the estimated route length first and by the remaining distance on ties
+    private static long priority(int estimate, int remaining) {
+        return ((long) estimate << Integer.SIZE) | remaining;
+    }
+
+    private static long cacheKey(int cell, int goal) {
+        return ((long) goal << CELL_BITS) | cell;
+    }
+
+    /**
+     * A part of the route cache that evicts its least recently used step.
+     */
+    private static final class CacheStripe {
+
+        private final Map<Long, Byte> steps;
+
+        CacheStripe(int maxSize) {
+            this.steps = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Byte> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized Byte get(long key) {
+            return steps.get(key);
+        }
+
+        synchronized void put(long key, byte step) {
+            steps.put(key, step);
+        }
+
+        synchronized int size() {
+            return steps.size();
+        }
+    }
+
+    /**
+     * A binary min-heap of cells ordered by a primitive priority.
+     */
+    private static final class CellHeap {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] priorities = new long[INITIAL_CAPACITY];
+        private int[] cells = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void add(long priority, int cell) {
+            if (size == priorities.length) {
+                priorities = Arrays.copyOf(priorities, size * 2);
+                cells = Arrays.copyOf(cells, size * 2);
+            }
+            int index = size++;
+            while (index > 0 && priorities[(index - 1) / 2] > priority) {
+                priorities[index] = priorities[(index - 1) / 2];
+                cells[index] = cells[(index - 1) / 2];
+                index = (index - 1) / 2;
+            }
+            priorities[index] = priority;
+            cells[index] = cell;
+        }
+
+        long peekPriority() {
+            return priorities[0];
+        }
+
+        int poll() {
+            int top = cells[0];
+            long lastPriority = priorities[--size];
+            int lastCell = cells[size];
+            int index = 0;
+            while (2 * index + 1 < size) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+                if (priorities[child] >= lastPriority) {
+                    break;
+                }
+                priorities[index] = priorities[child];
+                cells[index] = cells[child];
+                index = child;
+            }
+            priorities[index] = lastPriority;
+            cells[index] = lastCell;
+            return top;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
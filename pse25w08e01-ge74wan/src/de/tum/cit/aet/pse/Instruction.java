@@ -0,0 +1,35 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The instructions the {@link NavigationService} gives to a rider, each with
+ * its constant text.
+ */
+public enum Instruction {
+    CONNECTION_LOST("connection lost"),
+    NO_ROUTE("no route"),
+    DESTINATION_REACHED("destination reached"),
+    CONTINUE("continue"),
+    DRIVE_NORTH("drive north"),
+    DRIVE_EAST("drive east"),
+    DRIVE_SOUTH("drive south"),
+    DRIVE_WEST("drive west");
+
+    private final String text;
+
+    Instruction(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public static Instruction drive(Direction direction) {
+        return switch (direction) {
+            case NORTH -> DRIVE_NORTH;
+            case EAST -> DRIVE_EAST;
+            case SOUTH -> DRIVE_SOUTH;
+            case WEST -> DRIVE_WEST;
+        };
+    }
+}
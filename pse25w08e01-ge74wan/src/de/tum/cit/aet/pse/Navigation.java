@@ -0,0 +1,45 @@
+package de.tum.cit.aet.pse;
+
+import java.util.function.Consumer;
+
+/**
+ * A running navigation of one PEV to a destination. It listens to the
+ * positions of the PEV and only passes an instruction on when it differs
+ * from the previous one.
+ */
+public class Navigation implements PositionListener {
+
+    private final NavigationService navigationService;
+    private final PEV pev;
+    private final Destination destination;
+    private final Consumer<String> instructionConsumer;
+    private Instruction lastInstruction;
+
+    Navigation(NavigationService navigationService, PEV pev, Destination destination,
+               Consumer<String> instructionConsumer) {
+        this.navigationService = navigationService;
+        this.pev = pev;
+        this.destination = destination;
+        this.instructionConsumer = instructionConsumer;
+    }
+
+    @Override
+    public synchronized void positionChanged(PEV changedPEV, Position position) {
+        Instruction instruction = navigationService.getInstruction(position, destination);
+        if (instruction != lastInstruction) {
+            lastInstruction = instruction;
+            instructionConsumer.accept(instruction.getText());
+        }
+    }
+
+    public synchronized Instruction getLastInstruction() {
+        return lastInstruction;
+    }
+
+    /**
+     * Stops listening to the positions of the PEV.
+     */
+    public void stop() {
+        navigationService.getRealTimePositionService().unsubscribe(pev, this);
+    }
+}
@@ -1,11 +1,16 @@
 package de.tum.cit.aet.pse;
 
+import java.util.function.Consumer;
+
 /**
  * The NavigationService, which is used to give instructions to the rider of a
  * PEV.
  */
 public class NavigationService {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private RealTimePositionService realTimePositionService;
+    private GridRouter router;
 
     public NavigationService() {
     }
@@ -22,6 +27,20 @@ public void setRealTimePositionService(RealTimePositionService realTimePositionS
         this.realTimePositionService = realTimePositionService;
     }
 
+    public GridRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Lets the instructions follow the shortest route on a road grid instead
+     * of driving north or south first and east or west afterwards.
+     *
+     * @param router the router to use, or {@code null} for straight lines
+     */
+    public void setRouter(GridRouter router) {
+        this.router = router;
+    }
+
     /**
      * Gives instructions to the rider of a PEV how the reach a destination.
      * <p>
@@ -35,6 +54,9 @@ public void setRealTimePositionService(RealTimePositionService realTimePositionS
      * west/east of the destination and not facing that direction.
      * <p>
      * "continue" if the rider is already facing the correct direction.
+     * <p>
+     * "no route" if a router is set and the PEV is off the roads or cannot
+     * reach the destination.
      *
      * @param pev         the PEV used be the rider
      * @param destination the destination the rider wants to drive to
@@ -44,6 +66,53 @@ public String getInstructions(PEV pev, Destination destination) {
         int pevX = realTimePositionService.getX(pev);
         int pevY = realTimePositionService.getY(pev);
         Direction direction = realTimePositionService.getDirection(pev);
+        return getInstructions(new Position(pevX, pevY, direction), destination);
+    }
+
+    /**
+     * Gives the same instructions as {@link #getInstructions(PEV, Destination)}
+     * for an already known position.
+     *
+     * @param position    the position of the PEV
+     * @param destination the destination the rider wants to drive to
+     * @return the instruction for the rider what they should do next
+     */
+    public String getInstructions(Position position, Destination destination) {
+        return getInstruction(position, destination).getText();
+    }
+
+    /**
+     * Gives the instructions for many rides at once. All positions are
+     * fetched with a single call to the position service.
+     *
+     * @param pevs         the PEVs used by the riders
+     * @param destinations the destinations, in the order of the PEVs
+     * @return the instructions, in the order of the PEVs
+     */
+    public Instruction[] getInstructions(PEV[] pevs, Destination[] destinations) {
+        if (pevs.length != destinations.length) {
+            throw new IllegalArgumentException("Every PEV needs exactly one destination");
+        }
+        Position[] positions = realTimePositionService.getPositions(pevs);
+        Instruction[] instructions = new Instruction[pevs.length];
+        for (int i = 0; i < pevs.length; i++) {
+            instructions[i] = getInstruction(positions[i], destinations[i]);
+        }
+        return instructions;
+    }
+
+    /**
+     * Decides which instruction to give for a position, see
+     * {@link #getInstructions(PEV, Destination)}.
+     *
+     * @param position    the position of the PEV
+     * @param destination the destination the rider wants to drive to
+     * @return the instruction for the rider what they should do next
+     */
+    public Instruction getInstruction(Position position, Destination destination) {
+        int pevX = position.getX();
+        int pevY = position.getY();
+        Direction direction = position.getDirection();
 
         boolean sameX = pevX == destination.getX();
         boolean sameY = pevY == destination.getY();
@@ -51,20 +120,44 @@ public String getInstructions(PEV pev, Destination destination) {
         Direction destDirection;
 
         if (direction == null && pevX == 0 && pevY == 0) {
-            return "connection lost";
+            return Instruction.CONNECTION_LOST;
         }
-        if (!sameY) {
+        if (sameX && sameY) {
+            return Instruction.DESTINATION_REACHED;
+        }
+        if (router != null) {
+            int step = router.nextStep(pevX, pevY, destination);
+            if (step == GridRouter.NO_ROUTE) {
+                return Instruction.NO_ROUTE;
+            }
+            destDirection = DIRECTIONS[step];
+        } else if (!sameY) {
             destDirection = pevY < destination.getY() ? Direction.NORTH : Direction.SOUTH;
-        } else if (!sameX) {
-            destDirection = pevX < destination.getX() ? Direction.EAST : Direction.WEST;
         } else {
-            return "destination reached";
+            destDirection = pevX < destination.getX() ? Direction.EAST : Direction.WEST;
         }
         if (destDirection == direction) {
-            return "continue";
+            return Instruction.CONTINUE;
         }
         // could also make it more interesting by using "turn ..."
-        return "drive " + destDirection.name().toLowerCase();
+        return Instruction.drive(destDirection);
+    }
+
+    /**
+     * Starts a push based navigation: the position service pushes every new
+     * position of the PEV, and the consumer receives the current instruction
+     * right away and afterwards only when it changes.
+     *
+     * @param pev                 the PEV used be the rider
+     * @param destination         the destination the rider wants to drive to
+     * @param instructionConsumer receives the changed instructions
+     * @return the running navigation, which can be stopped
+     */
+    public Navigation navigate(PEV pev, Destination destination, Consumer<String> instructionConsumer) {
+        Navigation navigation = new Navigation(this, pev, destination, instructionConsumer);
+        realTimePositionService.subscribe(pev, navigation);
+        navigation.positionChanged(pev, realTimePositionService.getPosition(pev));
+        return navigation;
     }
 
     public String getDirectionDistance(PEV pev, Destination destination) {
@@ -77,9 +170,9 @@ public String getDirectionDistance(PEV pev, Destination destination) {
         } else if (direction.equals(Direction.SOUTH)){
             return "drive " + direction.name().toLowerCase() + " for " + (pevY - destination.getY()) + " more kilometers";
         } else if (direction.equals(Direction.WEST)) {
-            return "drive " + direction.name().toLowerCase() + " for " + (destination.getX() - pevX) + " more kilometers";
-        } else {
             return "drive " + direction.name().toLowerCase() + " for " + (pevX - destination.getX()) + " more kilometers";
+        } else {
+            return "drive " + direction.name().toLowerCase() + " for " + (destination.getX() - pevX) + " more kilometers";
         }
     }
 
@@ -1,10 +1,21 @@
 package de.tum.cit.aet.pse;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
-
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * A personal electric vehicle.
+ * <p>
+ * Bookings and the lock state are guarded by the vehicle's own monitor, so
+ * concurrent riders only contend when they book the same vehicle.
+ */
 public abstract class PEV {
 
     private int chargeLevel;
@@ -13,13 +24,22 @@ public abstract class PEV {
 
     private int pricePerMinute;
 
-    private final List<Rental> rentals;
+    // replaced on every booking, so readers get a consistent snapshot without the monitor
+    private volatile RentalHistory rentals;
+    // rentals keyed by their start, keeping the longest one per start; as accepted rentals never
+    // overlap, a later start always comes with an end that is not earlier
+    private final NavigableMap<LocalDateTime, Rental> bookings;
+    // order-independent combination of all rentals, extended on every booking
+    private long rentalsFingerprint;
+    private volatile long contentFingerprint;
 
     public PEV(int chargeLevel, String licensePlate) {
         this.chargeLevel = chargeLevel;
         this.licensePlate = licensePlate;
         this.available = true;
-        rentals = new ArrayList<>();
+        rentals = RentalHistory.EMPTY;
+        bookings = new TreeMap<>();
+        updateContentFingerprint();
     }
 
     @Override
@@ -34,55 +54,154 @@ public int getChargeLevel() {
     }
 
     public void setChargeLevel(int chargeLevel) {
-        this.chargeLevel = chargeLevel;
+        synchronized (this) {
+            this.chargeLevel = chargeLevel;
+            updateContentFingerprint();
+        }
     }
 
-    public boolean isAvailable() {
+    public synchronized boolean isAvailable() {
         return available;
     }
 
+    /**
+     * Returns the rentals in O(1), as the list is replaced on every booking.
+     *
+     * @return an unmodifiable snapshot of all rentals of this PEV in booking order
+     */
     public List<Rental> getRentals() {
         return rentals;
     }
+
+    public int getRentalCount() {
+        return rentals.size();
+    }
+
     public void setPricePerMinute(int pricePerMinute) {
-        this.pricePerMinute = pricePerMinute;
+        synchronized (this) {
+            this.pricePerMinute = pricePerMinute;
+            updateContentFingerprint();
+        }
     }
 
     public int getPricePerMinute() {
         return pricePerMinute;
     }
 
-    public void lock() {
+    public synchronized void lock() {
         if (!available) {
             throw new IllegalStateException("Already locked");
         }
         available = false;
+        updateContentFingerprint();
     }
 
-    public void unlock() {
+    public synchronized void unlock() {
         if (available) {
             throw new IllegalStateException("Already unlocked");
         }
         available = true;
+        updateContentFingerprint();
     }
 
-    public Rental rent(LocalDateTime from, LocalDateTime to, Rider rider) {
+    /**
+     * Atomically checks that the time frame is still free and books it.
+     *
+     * @throws IllegalArgumentException if the time frame overlaps an existing rental
+     */
+    public synchronized Rental rent(LocalDateTime from, LocalDateTime to, Rider rider) {
         if (isBooked(from, to)) {
             throw new IllegalArgumentException("Already booked!");
         }
         Rental rental = new Rental(from, to, this, rider);
-        rentals.add(rental);
+        rentals = rentals.append(rental);
+        bookings.merge(from, rental, (booked, added) -> booked.getTo().isBefore(added.getTo()) ? added : booked);
+        rentalsFingerprint += mix(31L * from.hashCode() + to.hashCode());
+        updateContentFingerprint();
         return rental;
     }
 
+    /**
+     * Checks in O(log n) whether a rental overlaps the given time frame.
+     * Only the latest rental starting before {@code to} can overlap, as it
+     * also ends last among all rentals starting before {@code to}.
+     */
     private boolean isBooked(LocalDateTime from, LocalDateTime to) {
-        return rentals.stream().anyMatch(rental -> from.isBefore(rental.getTo()) && rental.getFrom().isBefore(to));
+        Map.Entry<LocalDateTime, Rental> latestBefore = bookings.lowerEntry(to);
+        return latestBefore != null && from.isBefore(latestBefore.getValue().getTo());
     }
 
     public void ride() {
         System.out.println("Riding " + toString());
     }
     
+    /**
+     * Returns a fingerprint of the whole state of this PEV, including all
+     * rentals. It is maintained on every change, so reading it is O(1) even
+     * for a long rental history. Equal fingerprints indicate, but do not
+     * guarantee, equal content.
+     *
+     * @return the current content fingerprint
+     */
+    public long getContentFingerprint() {
+        return contentFingerprint;
+    }
+
+    private void updateContentFingerprint() {
+        long hash = Objects.hashCode(licensePlate);
+        hash = 31 * hash + chargeLevel;
+        hash = 31 * hash + pricePerMinute;
+        hash = 31 * hash + (available ? 1 : 0);
+        contentFingerprint = mix(hash) ^ rentalsFingerprint;
+    }
+
+    // finalizer of SplitMix64, spreads every input bit over the whole result
+    private static long mix(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * An append-only list of rentals. Appending writes behind the end of the
+     * shared array, which no earlier snapshot reads, so the array is only
+     * copied when it is full.
+     */
+    private static final class RentalHistory extends AbstractList<Rental> implements RandomAccess {
+
+        private static final RentalHistory EMPTY = new RentalHistory(new Rental[0], 0);
+
+        private final Rental[] elements;
+        private final int size;
+
+        private RentalHistory(Rental[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        // only called under the monitor of the PEV, on its latest history
+        private RentalHistory append(Rental rental) {
+            Rental[] target = size < elements.length ? elements : Arrays.copyOf(elements, Math.max(4, size * 2));
+            target[size] = rental;
+            return new RentalHistory(target, size + 1);
+        }
+
+        @Override
+        public Rental get(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * PEVs are identified by their license plate, so a PEV keeps its place
+     * in hash based collections while it is rented, locked or charged.
+     */
     @Override
 	public boolean equals(Object o) {
 		if (this == o) {
@@ -91,13 +210,11 @@ public boolean equals(Object o) {
 		if (!(o instanceof PEV pev)) {
 			return false;
 		}
-		return getChargeLevel() == pev.getChargeLevel() && isAvailable() == pev.isAvailable()
-		       && getPricePerMinute() == pev.getPricePerMinute() && Objects.equals(getLicensePlate(), pev.getLicensePlate())
-		       && getRentals().equals(pev.getRentals());
+		return Objects.equals(getLicensePlate(), pev.getLicensePlate());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(getChargeLevel(), getLicensePlate(), isAvailable(), getPricePerMinute(), getRentals());
+		return Objects.hashCode(getLicensePlate());
 	}
 }
@@ -0,0 +1,382 @@
+package de.tum.cit.aet.pse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index over the positions of PEVs that finds the available PEVs
+ * closest to a point.
+ * <p>
+ * The plane is split into square cells and every PEV is kept in the bucket
+ * of its cell. Queries only look at the cells that can contain a match. The
+ * index is updated incrementally: it is a {@link PositionListener}, so it
+ * can subscribe to a {@link RealTimePositionService} and move a PEV to its
+ * new bucket whenever a new position is pushed. PEVs whose connection is
+ * lost are dropped until their next position arrives.
+ */
+public class PEVGridIndex implements PositionListener {
+
+    private static final Comparator<Match> BY_DISTANCE = Comparator.comparingLong(Match::getDistanceSquared);
+
+    private final int cellSize;
+    private final Map<Long, List<PEV>> buckets;
+    private final Map<PEV, Entry> entries;
+    private final ReadWriteLock lock;
+    // the number of buckets per column and row, so the box around all buckets shrinks when they are removed
+    private final TreeMap<Integer, Integer> bucketsPerCellX;
+    private final TreeMap<Integer, Integer> bucketsPerCellY;
+
+    /**
+     * @param cellSize the edge length of a cell in kilometers; about the
+     *                 typical query radius works best
+     */
+    public PEVGridIndex(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.buckets = new HashMap<>();
+        this.entries = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.bucketsPerCellX = new TreeMap<>();
+        this.bucketsPerCellY = new TreeMap<>();
+    }
+
+    /**
+     * Indexes the current position of a PEV and keeps it up to date with the
+     * positions pushed by the service.
+     *
+     * @param pev             the PEV to index
+     * @param positionService the service that locates the PEV
+     */
+    public void track(PEV pev, RealTimePositionService positionService) {
+        positionService.subscribe(pev, this);
+        positionChanged(pev, positionService.getPosition(pev));
+    }
+
+    public void untrack(PEV pev, RealTimePositionService positionService) {
+        positionService.unsubscribe(pev, this);
+        remove(pev);
+    }
+
+    @Override
+    public void positionChanged(PEV pev, Position position) {
+        if (position.getDirection() == null && position.getX() == 0 && position.getY() == 0) {
+            remove(pev);
+        } else {
+            update(pev, position.getX(), position.getY());
+        }
+    }
+
+    /**
+     * Moves a PEV to a new position, adding it to the index if necessary.
+     */
+    public void update(PEV pev, int x, int y) {
+        int cellX = Math.floorDiv(x, cellSize);
+        int cellY = Math.floorDiv(y, cellSize);
+        long cell = cellKey(cellX, cellY);
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(pev);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(pev, entry);
+            } else if (entry.cell != cell) {
+                removeFromBucket(pev, entry);
+            }
+            if (entry.bucket == null) {
+                entry.cell = cell;
+                entry.cellX = cellX;
+                entry.cellY = cellY;
+                entry.bucket = buckets.get(cell);
+                if (entry.bucket == null) {
+                    entry.bucket = new ArrayList<>();
+                    buckets.put(cell, entry.bucket);
+                    bucketsPerCellX.merge(cellX, 1, Integer::sum);
+                    bucketsPerCellY.merge(cellY, 1, Integer::sum);
+                }
+                entry.index = entry.bucket.size();
+                entry.bucket.add(pev);
+            }
+            entry.x = x;
+            entry.y = y;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(PEV pev) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(pev);
+            if (entry != null) {
+                removeFromBucket(pev, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the available PEVs within a radius around a point.
+     *
+     * @param x      x-coordinate of the point
+     * @param y      y-coordinate of the point
+     * @param radius the maximal distance of a PEV to the point
+     * @param filter further condition a PEV has to fulfill, e.g. the search
+     *               criteria of a rider
+     * @return the matching PEVs, closest first
+     */
+    public List<PEV> withinRadius(int x, int y, int radius, Predicate<PEV> filter) {
+        long radiusSquared = (long) radius * radius;
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (entries.isEmpty()) {
+                return new ArrayList<>();
+            }
+            int fromCellX = Math.max(bucketsPerCellX.firstKey(), Math.floorDiv(x - radius, cellSize));
+            int toCellX = Math.min(bucketsPerCellX.lastKey(), Math.floorDiv(x + radius, cellSize));
+            int fromCellY = Math.max(bucketsPerCellY.firstKey(), Math.floorDiv(y - radius, cellSize));
+            int toCellY = Math.min(bucketsPerCellY.lastKey(), Math.floorDiv(y + radius, cellSize));
+            long cells = ((long) toCellX - fromCellX + 1) * ((long) toCellY - fromCellY + 1);
+            if (cells > buckets.size()) {
+                // a large radius covers more cells than there are buckets
+                for (List<PEV> bucket : buckets.values()) {
+                    collect(bucket, x, y, radiusSquared, filter, matches);
+                }
+            } else {
+                for (int cellX = fromCellX; cellX <= toCellX; cellX++) {
+                    for (int cellY = fromCellY; cellY <= toCellY; cellY++) {
+                        List<PEV> bucket = buckets.get(cellKey(cellX, cellY));
+                        if (bucket != null) {
+                            collect(bucket, x, y, radiusSquared, filter, matches);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(BY_DISTANCE);
+        List<PEV> result = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            result.add(match.pev);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the k available PEVs closest to a point. The cells are searched
+     * in growing rings around the point until no PEV outside the rings can be
+     * closer than the k best ones found so far. Only
+     * the part of a ring inside the box around all buckets is searched, and
+     * the first ring is the one that reaches the box. If the rings cover more
+     * cells than there are buckets, all buckets are scanned instead, so a
+     * query never visits more cells than twice the number of buckets.
+     *
+     * @param x      x-coordinate of the point
+     * @param y      y-coordinate of the point
+     * @param k      the maximal number of PEVs to find
+     * @param filter further condition a PEV has to fulfill, e.g. the search
+     *               criteria of a rider
+     * @return up to k matching PEVs, closest first
+     */
+    public List<PEV> nearest(int x, int y, int k, Predicate<PEV> filter) {
+        // the farthest of the best matches so far is on top
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.max(1, k), BY_DISTANCE.reversed());
+        lock.readLock().lock();
+        try {
+            if (entries.isEmpty() || k <= 0) {
+                return new ArrayList<>();
+            }
+            int centerX = Math.floorDiv(x, cellSize);
+            int centerY = Math.floorDiv(y, cellSize);
+            int minCellX = bucketsPerCellX.firstKey();
+            int maxCellX = bucketsPerCellX.lastKey();
+            int minCellY = bucketsPerCellY.firstKey();
+            int maxCellY = bucketsPerCellY.lastKey();
+            long firstRing = Math.max(Math.max(0, Math.max((long) minCellX - centerX, (long) centerX - maxCellX)),
+                    Math.max((long) minCellY - centerY, (long) centerY - maxCellY));
+            long maxRing = Math.max(Math.max((long) centerX - minCellX, (long) maxCellX - centerX),
+                    Math.max((long) centerY - minCellY, (long) maxCellY - centerY));
+            long visited = 0;
+            for (long ring = firstRing; ring <= maxRing; ring++) {
+                long fromCellX = Math.max(minCellX, centerX - ring);
+                long toCellX = Math.min(maxCellX, centerX + ring);
+                // the rows at the top and bottom of the ring, then the columns between them
+                long fromCellY = Math.max(minCellY, centerY - ring + 1);
+                long toCellY = Math.min(maxCellY, centerY + ring - 1);
+                for (long cellY = centerY - ring; cellY <= centerY + ring; cellY += Math.max(1, 2 * ring)) {
+                    if (cellY >= minCellY && cellY <= maxCellY) {
+                        for (long cellX = fromCellX; cellX <= toCellX; cellX++) {
+                            offer((int) cellX, (int) cellY, x, y, k, filter, best);
+                            visited++;
+                        }
+                    }
+                }
+                for (long cellX = centerX - ring; ring > 0 && cellX <= centerX + ring; cellX += 2 * ring) {
+                    if (cellX >= minCellX && cellX <= maxCellX) {
+                        for (long cellY = fromCellY; cellY <= toCellY; cellY++) {
+                            offer((int) cellX, (int) cellY, x, y, k, filter, best);
+                            visited++;
+                        }
+                    }
+                }
+                if (best.size() == k) {
+                    long unvisited = unvisitedDistanceSquared(x, y, centerX, centerY, ring, minCellX, maxCellX,
+                            minCellY, maxCellY);
+                    if (best.peek().distanceSquared <= unvisited) {
+                        break;
+                    }
+                }
+                if (visited > buckets.size()) {
+                    // the rings run through mostly empty cells
+                    best.clear();
+                    for (List<PEV> bucket : buckets.values()) {
+                        offer(bucket, x, y, k, filter, best);
+                    }
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(BY_DISTANCE);
+        List<PEV> result = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            result.add(match.pev);
+        }
+        return result;
+    }
+
+    private void collect(List<PEV> bucket, int x, int y, long radiusSquared, Predicate<PEV> filter,
+            List<Match> matches) {
+        for (PEV pev : bucket) {
+            long distanceSquared = distanceSquared(entries.get(pev), x, y);
+            if (distanceSquared <= radiusSquared && pev.isAvailable() && filter.test(pev)) {
+                matches.add(new Match(pev, distanceSquared));
+            }
+        }
+    }
+
+    /**
+     * Returns how close a PEV in a cell outside the searched rings can be to
+     * the point. These cells lie left, right, below or above the rings, each
+     * part cut to the box around all buckets.
+     */
+    private long unvisitedDistanceSquared(int x, int y, long centerX, long centerY, long ring, long minCellX,
+            long maxCellX, long minCellY, long maxCellY) {
+        long left = distanceSquared(x, y, minCellX, Math.min(maxCellX, centerX - ring - 1), minCellY, maxCellY);
+        long right = distanceSquared(x, y, Math.max(minCellX, centerX + ring + 1), maxCellX, minCellY, maxCellY);
+        long below = distanceSquared(x, y, minCellX, maxCellX, minCellY, Math.min(maxCellY, centerY - ring - 1));
+        long above = distanceSquared(x, y, minCellX, maxCellX, Math.max(minCellY, centerY + ring + 1), maxCellY);
+        return Math.min(Math.min(left, right), Math.min(below, above));
+    }
+
+    // the distance of the point to the closest position in a range of cells, or Long.MAX_VALUE if it is empty
+    private long distanceSquared(int x, int y, long fromCellX, long toCellX, long fromCellY, long toCellY) {
+        if (fromCellX > toCellX || fromCellY > toCellY) {
+            return Long.MAX_VALUE;
+        }
+        long dx = Math.max(0, Math.max(fromCellX * cellSize - x, x - ((toCellX + 1) * cellSize - 1)));
+        long dy = Math.max(0, Math.max(fromCellY * cellSize - y, y - ((toCellY + 1) * cellSize - 1)));
+        return dx * dx + dy * dy;
+    }
+
+    private void offer(int cellX, int cellY, int x, int y, int k, Predicate<PEV> filter, PriorityQueue<Match> best) {
+        List<PEV> bucket = buckets.get(cellKey(cellX, cellY));
+        if (bucket != null) {
+            offer(bucket, x, y, k, filter, best);
+        }
+    }
+
+    private void offer(List<PEV> bucket, int x, int y, int k, Predicate<PEV> filter, PriorityQueue<Match> best) {
+        for (PEV pev : bucket) {
+            long distanceSquared = distanceSquared(entries.get(pev), x, y);
+            if (best.size() == k && distanceSquared >= best.peek().distanceSquared) {
+                continue;
+            }
+            if (pev.isAvailable() && filter.test(pev)) {
+                best.add(new Match(pev, distanceSquared));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    private void removeFromBucket(PEV pev, Entry entry) {
+        // move the last PEV of the bucket into the gap
+        List<PEV> bucket = entry.bucket;
+        PEV last = bucket.remove(bucket.size() - 1);
+        if (last != pev) {
+            bucket.set(entry.index, last);
+            entries.get(last).index = entry.index;
+        }
+        if (bucket.isEmpty()) {
+            buckets.remove(entry.cell);
+            removeBucketOf(bucketsPerCellX, entry.cellX);
+            removeBucketOf(bucketsPerCellY, entry.cellY);
+        }
+        entry.bucket = null;
+    }
+
+    private static void removeBucketOf(TreeMap<Integer, Integer> bucketsPerCell, int cell) {
+        bucketsPerCell.computeIfPresent(cell, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static long distanceSquared(Entry entry, int x, int y) {
+        long dx = entry.x - (long) x;
+        long dy = entry.y - (long) y;
+        return dx * dx + dy * dy;
+    }
+
+    // Long.hashCode of the packed coordinates would be cellX ^ cellY, which collides for all nearby cells;
+    // multiplying with an odd constant keeps the keys distinct and spreads them over the whole hash
+    private static long cellKey(int cellX, int cellY) {
+        return (((long) cellX << Integer.SIZE) | (cellY & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static final class Entry {
+        private int x;
+        private int y;
+        private long cell;
+        private int cellX;
+        private int cellY;
+        private List<PEV> bucket;
+        private int index;
+    }
+
+    private static final class Match {
+        private final PEV pev;
+        private final long distanceSquared;
+
+        private Match(PEV pev, long distanceSquared) {
+            this.pev = pev;
+            this.distanceSquared = distanceSquared;
+        }
+
+        private long getDistanceSquared() {
+            return distanceSquared;
+        }
+    }
+}
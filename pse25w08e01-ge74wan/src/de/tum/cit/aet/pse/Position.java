@@ -0,0 +1,48 @@
+package de.tum.cit.aet.pse;
+
+import java.util.Objects;
+
+/**
+ * A consistent snapshot of where a PEV is and which direction it is facing.
+ */
+public final class Position {
+
+    private final int x;
+    private final int y;
+    private final Direction direction;
+
+    public Position(int x, int y, Direction direction) {
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(x, y, direction);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Position)) {
+            return false;
+        }
+        Position other = (Position) obj;
+        return x == other.x && y == other.y && direction == other.direction;
+    }
+}
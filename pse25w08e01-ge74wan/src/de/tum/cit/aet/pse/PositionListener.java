@@ -0,0 +1,11 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * Receives the positions of a PEV as they are pushed by a
+ * {@link RealTimePositionService}.
+ */
+@FunctionalInterface
+public interface PositionListener {
+
+    void positionChanged(PEV pev, Position position);
+}
@@ -0,0 +1,110 @@
+package de.tum.cit.aet.pse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a position service that can only be polled into one that pushes.
+ * <p>
+ * The subscribed PEVs of each service are polled with a single call to
+ * {@link RealTimePositionService#getPositions} per interval, and only
+ * positions that changed since the last poll are passed on. Polling runs on
+ * one daemon thread, which is started with the first subscription.
+ */
+final class PositionPolling {
+
+    static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+    private static final PositionPolling SHARED = new PositionPolling(DEFAULT_INTERVAL_MILLIS);
+
+    private final long intervalMillis;
+    private final Map<RealTimePositionService, Map<PEV, Subscription>> subscriptions;
+    private ScheduledExecutorService scheduler;
+
+    PositionPolling(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+        this.subscriptions = new ConcurrentHashMap<>();
+    }
+
+    static PositionPolling shared() {
+        return SHARED;
+    }
+
+    // both maps are changed within one compute of the service, so an unsubscribe cannot remove a subscription
+    // between its lookup and the added listener, and a service without PEVs is not polled any more
+    void subscribe(RealTimePositionService service, PEV pev, PositionListener listener) {
+        subscriptions.compute(service, (key, pevs) -> {
+            Map<PEV, Subscription> subscribed = pevs == null ? new ConcurrentHashMap<>() : pevs;
+            subscribed.computeIfAbsent(pev, k -> new Subscription()).listeners.add(listener);
+            return subscribed;
+        });
+        startPolling();
+    }
+
+    void unsubscribe(RealTimePositionService service, PEV pev, PositionListener listener) {
+        subscriptions.computeIfPresent(service, (key, pevs) -> {
+            pevs.computeIfPresent(pev, (k, subscription) -> {
+                subscription.listeners.remove(listener);
+                return subscription.listeners.isEmpty() ? null : subscription;
+            });
+            return pevs.isEmpty() ? null : pevs;
+        });
+    }
+
+    boolean isPolling(RealTimePositionService service) {
+        return subscriptions.containsKey(service);
+    }
+
+    private synchronized void startPolling() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "position-polling");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::pollAll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void pollAll() {
+        for (Map.Entry<RealTimePositionService, Map<PEV, Subscription>> entry : subscriptions.entrySet()) {
+            try {
+                poll(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                // a failing service or listener must neither stop the others nor the polling thread
+                System.err.println("Polling positions failed: " + e);
+            }
+        }
+    }
+
+    private static void poll(RealTimePositionService service, Map<PEV, Subscription> pevs) {
+        PEV[] polled = pevs.keySet().toArray(new PEV[0]);
+        if (polled.length == 0) {
+            return;
+        }
+        Position[] positions = service.getPositions(polled);
+        for (int i = 0; i < polled.length; i++) {
+            Subscription subscription = pevs.get(polled[i]);
+            if (subscription == null || Objects.equals(subscription.lastPosition, positions[i])) {
+                continue;
+            }
+            subscription.lastPosition = positions[i];
+            for (PositionListener listener : subscription.listeners) {
+                listener.positionChanged(polled[i], positions[i]);
+            }
+        }
+    }
+
+    private static final class Subscription {
+
+        private final List<PositionListener> listeners = new CopyOnWriteArrayList<>();
+        // only touched by the polling thread
+        private Position lastPosition;
+    }
+}
@@ -6,4 +6,57 @@ public interface RealTimePositionService {
     int getY(PEV pev);
 
     Direction getDirection(PEV pev);
+
+    /**
+     * Returns x, y and direction of a PEV in one call. Services that can
+     * read them atomically should override this, the default combines three
+     * separate reads.
+     *
+     * @param pev the PEV to locate
+     * @return the current position of the PEV
+     */
+    default Position getPosition(PEV pev) {
+        return new Position(getX(pev), getY(pev), getDirection(pev));
+    }
+
+    /**
+     * Returns the positions of many PEVs in one call. Services that can
+     * batch their lookups should override this, the default asks for each
+     * PEV separately.
+     *
+     * @param pevs the PEVs to locate
+     * @return the current positions, in the order of the PEVs
+     */
+    default Position[] getPositions(PEV[] pevs) {
+        Position[] positions = new Position[pevs.length];
+        for (int i = 0; i < pevs.length; i++) {
+            positions[i] = getPosition(pevs[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Pushes every new position of the PEV to the listener instead of
+     * having it poll. Services that can push should override this; the
+     * default polls all subscribed PEVs of this service every
+     * {@value PositionPolling#DEFAULT_INTERVAL_MILLIS} milliseconds with one
+     * call to {@link #getPositions} and passes on the positions that changed.
+     *
+     * @param pev      the PEV to track
+     * @param listener the listener to notify
+     */
+    default void subscribe(PEV pev, PositionListener listener) {
+        PositionPolling.shared().subscribe(this, pev, listener);
+    }
+
+    /**
+     * Stops pushing the positions of the PEV to the listener. Must be
+     * overridden together with {@link #subscribe}.
+     *
+     * @param pev      the tracked PEV
+     * @param listener the listener to remove
+     */
+    default void unsubscribe(PEV pev, PositionListener listener) {
+        PositionPolling.shared().unsubscribe(this, pev, listener);
+    }
 }
@@ -2,7 +2,6 @@
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Rider {
@@ -61,7 +60,9 @@ public DriversLicense getDriversLicense() {
     }
 
     public List<Rental> getRentals() {
-        return Collections.unmodifiableList(rentals);
+        synchronized (rentals) {
+            return List.copyOf(rentals);
+        }
     }
 
     public void receiveDriversLicense() {
@@ -71,7 +72,9 @@ public void receiveDriversLicense() {
     public void rent(PEV pev1, LocalDateTime from, LocalDateTime to) {
         try {
             Rental rental = pev1.rent(from, to, this);
-            this.rentals.add(rental);
+            synchronized (rentals) {
+                this.rentals.add(rental);
+            }
         } catch (IllegalArgumentException ignored) {
             System.out.println("Couldn't book the pev since it is already booked");
         }
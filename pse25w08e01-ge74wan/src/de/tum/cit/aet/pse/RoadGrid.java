@@ -0,0 +1,62 @@
+package de.tum.cit.aet.pse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The roads of a city on the same integer grid as {@link Destination} and
+ * {@link RealTimePositionService}.
+ * <p>
+ * A grid is read from text lines: '#' marks a cell without road, every other
+ * character a cell with road. The first line is the northern edge, so the
+ * last line holds y = 0, and the first character of a line holds x = 0.
+ */
+public final class RoadGrid {
+
+    private static final char BLOCKED = '#';
+
+    private final int width;
+    private final int height;
+    private final BitSet blocked;
+
+    private RoadGrid(int width, int height, BitSet blocked) {
+        this.width = width;
+        this.height = height;
+        this.blocked = blocked;
+    }
+
+    public static RoadGrid load(Path file) throws IOException {
+        return parse(Files.readAllLines(file));
+    }
+
+    public static RoadGrid parse(List<String> lines) {
+        int height = lines.size();
+        int width = lines.stream().mapToInt(String::length).max().orElse(0);
+        BitSet blocked = new BitSet(width * height);
+        for (int row = 0; row < height; row++) {
+            String line = lines.get(row);
+            int y = height - 1 - row;
+            for (int x = 0; x < width; x++) {
+                if (x >= line.length() || line.charAt(x) == BLOCKED) {
+                    blocked.set(y * width + x);
+                }
+            }
+        }
+        return new RoadGrid(width, height, blocked);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isRoad(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && !blocked.get(y * width + x);
+    }
+}
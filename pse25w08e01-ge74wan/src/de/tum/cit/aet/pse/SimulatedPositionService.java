@@ -0,0 +1,97 @@
+package de.tum.cit.aet.pse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A local position feed that simulates the PEVs instead of asking real
+ * vehicles. Positions are replaced as a whole, so every read returns a
+ * consistent snapshot. Unknown PEVs are reported at (0, 0) without a
+ * direction, like a lost connection.
+ */
+public class SimulatedPositionService implements RealTimePositionService {
+
+    private static final Position UNKNOWN = new Position(0, 0, null);
+
+    private final Map<PEV, Position> positions;
+    private final Map<PEV, List<PositionListener>> listeners;
+
+    public SimulatedPositionService() {
+        this.positions = new ConcurrentHashMap<>();
+        this.listeners = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Moves a PEV to the given position and notifies its subscribers.
+     *
+     * @param pev      the PEV to move
+     * @param position the new position of the PEV
+     */
+    public void place(PEV pev, Position position) {
+        positions.put(pev, position);
+        publish(pev, position);
+    }
+
+    /**
+     * Lets every simulated PEV drive one kilometer in the direction it is
+     * facing.
+     */
+    public void step() {
+        for (Map.Entry<PEV, Position> entry : positions.entrySet()) {
+            Position position = entry.getValue();
+            if (position.getDirection() == null) {
+                continue;
+            }
+            place(entry.getKey(), switch (position.getDirection()) {
+                case NORTH -> new Position(position.getX(), position.getY() + 1, Direction.NORTH);
+                case EAST -> new Position(position.getX() + 1, position.getY(), Direction.EAST);
+                case SOUTH -> new Position(position.getX(), position.getY() - 1, Direction.SOUTH);
+                case WEST -> new Position(position.getX() - 1, position.getY(), Direction.WEST);
+            });
+        }
+    }
+
+    @Override
+    public int getX(PEV pev) {
+        return getPosition(pev).getX();
+    }
+
+    @Override
+    public int getY(PEV pev) {
+        return getPosition(pev).getY();
+    }
+
+    @Override
+    public Direction getDirection(PEV pev) {
+        return getPosition(pev).getDirection();
+    }
+
+    @Override
+    public Position getPosition(PEV pev) {
+        return positions.getOrDefault(pev, UNKNOWN);
+    }
+
+    @Override
+    public void subscribe(PEV pev, PositionListener listener) {
+        listeners.computeIfAbsent(pev, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unsubscribe(PEV pev, PositionListener listener) {
+        List<PositionListener> pevListeners = listeners.get(pev);
+        if (pevListeners != null) {
+            pevListeners.remove(listener);
+        }
+    }
+
+    private void publish(PEV pev, Position position) {
+        List<PositionListener> pevListeners = listeners.get(pev);
+        if (pevListeners != null) {
+            for (PositionListener listener : pevListeners) {
+                listener.positionChanged(pev, position);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GridRouterTest {
+
+    // a wall between x = 0 and x = 2 that is only open at the top
+    private final RoadGrid grid = RoadGrid.parse(List.of(
+            ".....",
+            ".#...",
+            ".#.#.",
+            ".#.#."));
+    private final GridRouter router = new GridRouter(grid);
+
+    @Test
+    void testRouteAroundObstacle() {
+        Destination destination = new Destination(2, 0, "Office");
+
+        assertEquals(8, drive(0, 0, destination));
+    }
+
+    @Test
+    void testRoutesAreShortestAndCached() {
+        Destination destination = new Destination(4, 0, "Home");
+
+        assertEquals(6, drive(2, 0, destination));
+        int cachedSteps = router.getCachedSteps();
+        // driving from the middle of a found route does not search again
+        assertEquals(Direction.NORTH, router.nextDirection(2, 1, destination));
+        assertEquals(cachedSteps, router.getCachedSteps());
+        assertNull(router.nextDirection(4, 0, destination));
+    }
+
+    /*
+     * On an open grid every cell between start and destination lies on a
+     * shortest route, so a search that breaks ties arbitrarily expands most
+     * of them. Breaking ties towards the destination expands one route.
+     */
+    @Test
+    void testTiesAreBrokenTowardsDestination() {
+        List<String> rows = new ArrayList<>();
+        for (int y = 0; y < 200; y++) {
+            rows.add(".".repeat(200));
+        }
+        GridRouter openRouter = new GridRouter(RoadGrid.parse(rows));
+
+        assertEquals(Direction.NORTH, openRouter.nextDirection(0, 0, new Destination(0, 199, "North")));
+        assertEquals(199, openRouter.getExpandedCells());
+        openRouter.nextDirection(0, 0, new Destination(199, 199, "Corner"));
+        assertTrue(openRouter.getExpandedCells() <= 2 * 398, "expanded " + openRouter.getExpandedCells());
+        openRouter.nextDirection(199, 0, new Destination(0, 199, "Other corner"));
+        assertTrue(openRouter.getExpandedCells() <= 2 * 398, "expanded " + openRouter.getExpandedCells());
+    }
+
+    @Test
+    void testUnreachableDestination() {
+        RoadGrid walled = RoadGrid.parse(List.of(
+                "..#..",
+                "..#.."));
+        GridRouter walledRouter = new GridRouter(walled);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> walledRouter.nextDirection(0, 0, new Destination(4, 0, "Island")));
+        assertThrows(IllegalArgumentException.class,
+                () -> walledRouter.nextDirection(0, 0, new Destination(2, 0, "Wall")));
+    }
+
+    @Test
+    void testNavigationFollowsRoads() {
+        SimulatedPositionService positionService = new SimulatedPositionService();
+        NavigationService navigationService = new NavigationService(positionService);
+        navigationService.setRouter(router);
+
+        // the straight line would lead east into the wall, the road leads north first
+        assertEquals(Instruction.DRIVE_NORTH, navigationService.getInstruction(
+                new Position(2, 1, Direction.EAST), new Destination(4, 1, "Park")));
+        assertEquals(Instruction.DESTINATION_REACHED, navigationService.getInstruction(
+                new Position(4, 1, Direction.NORTH), new Destination(4, 1, "Park")));
+    }
+
+    @Test
+    void testNavigationReportsNoRoute() {
+        RoadGrid walled = RoadGrid.parse(List.of(
+                "..#..",
+                "..#.."));
+        SimulatedPositionService positionService = new SimulatedPositionService();
+        NavigationService navigationService = new NavigationService(positionService);
+        navigationService.setRouter(new GridRouter(walled));
+        PEV stranded = new EBike(80, "M-1");
+        PEV offRoad = new EBike(80, "M-2");
+        PEV arriving = new EBike(80, "M-3");
+        positionService.place(stranded, new Position(0, 1, Direction.EAST));
+        positionService.place(offRoad, new Position(2, 1, Direction.EAST));
+        positionService.place(arriving, new Position(3, 1, Direction.EAST));
+        Destination island = new Destination(4, 1, "Island");
+
+        Instruction[] instructions = navigationService.getInstructions(new PEV[] {stranded, offRoad, arriving},
+                new Destination[] {island, island, island});
+
+        assertArrayEquals(new Instruction[] {Instruction.NO_ROUTE, Instruction.NO_ROUTE, Instruction.CONTINUE},
+                instructions);
+        assertEquals("no route", navigationService.getInstructions(stranded, island));
+    }
+
+    // follows the router to the destination and returns the number of steps
+    private int drive(int x, int y, Destination destination) {
+        int steps = 0;
+        Direction direction;
+        while ((direction = router.nextDirection(x, y, destination)) != null) {
+            switch (direction) {
+                case NORTH -> y++;
+                case EAST -> x++;
+                case SOUTH -> y--;
+                case WEST -> x--;
+            }
+            assertTrue(grid.isRoad(x, y));
+            steps++;
+        }
+        return steps;
+    }
+}
@@ -56,6 +56,44 @@ void testDirectionDistance() {
         String distance = navigationService.getDirectionDistance(pev, destination);
         assertEquals("drive south for 5 more kilometers", distance);
     }
+
+    @Test
+    void testDirectionDistanceNorth() {
+        Destination destination = new Destination(5, 10, "Office");
+        expect(realTimePositionService.getDirection(pev)).andReturn(Direction.NORTH);
+        expect(realTimePositionService.getX(pev)).andReturn(5);
+        expect(realTimePositionService.getY(pev)).andReturn(3);
+        replay(realTimePositionService);
+        String distance = navigationService.getDirectionDistance(pev, destination);
+        assertEquals("drive north for 7 more kilometers", distance);
+    }
+
+    /*
+     * The distances for WEST and EAST had their signs swapped and were
+     * reported as negative numbers.
+     */
+
+    @Test
+    void testDirectionDistanceWest() {
+        Destination destination = new Destination(5, 10, "Office");
+        expect(realTimePositionService.getDirection(pev)).andReturn(Direction.WEST);
+        expect(realTimePositionService.getX(pev)).andReturn(12);
+        expect(realTimePositionService.getY(pev)).andReturn(10);
+        replay(realTimePositionService);
+        String distance = navigationService.getDirectionDistance(pev, destination);
+        assertEquals("drive west for 7 more kilometers", distance);
+    }
+
+    @Test
+    void testDirectionDistanceEast() {
+        Destination destination = new Destination(5, 10, "Office");
+        expect(realTimePositionService.getDirection(pev)).andReturn(Direction.EAST);
+        expect(realTimePositionService.getX(pev)).andReturn(1);
+        expect(realTimePositionService.getY(pev)).andReturn(10);
+        replay(realTimePositionService);
+        String distance = navigationService.getDirectionDistance(pev, destination);
+        assertEquals("drive east for 4 more kilometers", distance);
+    }
     // TODO make sure to initialize the attributes required for the tests
 
     // TODO implement testDestinationReached()
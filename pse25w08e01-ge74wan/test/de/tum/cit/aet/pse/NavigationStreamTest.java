@@ -0,0 +1,124 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class NavigationStreamTest {
+
+    private final SimulatedPositionService positionService = new SimulatedPositionService();
+    private final NavigationService navigationService = new NavigationService(positionService);
+
+    @Test
+    void testNavigateOnlyEmitsChangedInstructions() {
+        PEV pev = new EBike(80, "M-1");
+        Destination destination = new Destination(0, 3, "Home");
+        List<String> instructions = new ArrayList<>();
+        positionService.place(pev, new Position(0, 0, Direction.EAST));
+
+        Navigation navigation = navigationService.navigate(pev, destination, instructions::add);
+        positionService.place(pev, new Position(0, 0, Direction.NORTH));
+        positionService.step();
+        positionService.step();
+        positionService.step();
+        navigation.stop();
+        positionService.step();
+
+        assertEquals(List.of("drive north", "continue", "destination reached"), instructions);
+    }
+
+    @Test
+    void testNavigatePollsServiceThatCannotPush() throws InterruptedException {
+        PEV pev = new EBike(80, "M-1");
+        PollOnlyPositionService pollOnly = new PollOnlyPositionService();
+        pollOnly.position = new Position(0, 0, Direction.EAST);
+        BlockingQueue<String> instructions = new LinkedBlockingQueue<>();
+
+        Navigation navigation = new NavigationService(pollOnly).navigate(pev, new Destination(0, 1, "Home"),
+                instructions::add);
+        assertEquals("drive north", instructions.poll(5, TimeUnit.SECONDS));
+        pollOnly.position = new Position(0, 1, Direction.NORTH);
+        assertEquals("destination reached", instructions.poll(5, TimeUnit.SECONDS));
+        navigation.stop();
+    }
+
+    @Test
+    void testBatchInstructions() {
+        PEV lost = new EBike(80, "M-1");
+        PEV arrived = new EBike(80, "M-2");
+        PEV turning = new EMoped(80, "M-3");
+        positionService.place(arrived, new Position(4, 2, Direction.WEST));
+        positionService.place(turning, new Position(1, 2, Direction.NORTH));
+        Destination destination = new Destination(4, 2, "Office");
+
+        Instruction[] instructions = navigationService.getInstructions(new PEV[] {lost, arrived, turning},
+                new Destination[] {destination, destination, destination});
+
+        assertArrayEquals(new Instruction[] {Instruction.CONNECTION_LOST, Instruction.DESTINATION_REACHED,
+                Instruction.DRIVE_EAST}, instructions);
+    }
+
+    /*
+     * Tracks 100k simulated rides that all drive north and prints how many
+     * position updates per second the push based navigation handles.
+     */
+    @Test
+    void testNavigateManyRides() {
+        int rides = 100_000;
+        int steps = 10;
+        AtomicLong instructions = new AtomicLong();
+        for (int i = 0; i < rides; i++) {
+            PEV pev = new EKickscooter(80, "M-" + i);
+            positionService.place(pev, new Position(i, 0, Direction.NORTH));
+            navigationService.navigate(pev, new Destination(i, steps, "Destination " + i),
+                    instruction -> instructions.incrementAndGet());
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            positionService.step();
+        }
+        long duration = System.nanoTime() - begin;
+
+        // "continue" once at the start, "destination reached" once at the end
+        assertEquals(2L * rides, instructions.get());
+        System.out.printf("%,d position updates/s%n", rides * steps * TimeUnit.SECONDS.toNanos(1) / duration);
+    }
+
+    /**
+     * A position service that can only be polled, like a remote service
+     * without a push channel.
+     */
+    private static final class PollOnlyPositionService implements RealTimePositionService {
+
+        private volatile Position position;
+
+        @Override
+        public int getX(PEV pev) {
+            return getPosition(pev).getX();
+        }
+
+        @Override
+        public int getY(PEV pev) {
+            return getPosition(pev).getY();
+        }
+
+        @Override
+        public Direction getDirection(PEV pev) {
+            return getPosition(pev).getDirection();
+        }
+
+        @Override
+        public Position getPosition(PEV pev) {
+            return position;
+        }
+    }
+}
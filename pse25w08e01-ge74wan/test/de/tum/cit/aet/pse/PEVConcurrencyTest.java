@@ -0,0 +1,115 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+class PEVConcurrencyTest {
+
+    private static final int VEHICLES = 32;
+    private static final int BOOKINGS_PER_THREAD = 2_000;
+    private static final int SLOTS = 500;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+
+    /*
+     * Lets 1 to 64 riders book random slots on a small fleet at the same
+     * time and checks afterwards that no vehicle was booked twice for the
+     * same time frame and that every rider knows exactly its own rentals.
+     * The achieved bookings per second are printed.
+     */
+    @Test
+    void testConcurrentRentNeverDoubleBooks() throws InterruptedException {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            List<PEV> fleet = new ArrayList<>();
+            for (int i = 0; i < VEHICLES; i++) {
+                fleet.add(new EBike(100, "M-" + i));
+            }
+            List<Rider> riders = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                riders.add(new Rider("R-" + i, 30, true, null));
+            }
+            long duration = runConcurrently(riders, rider -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    PEV pev = fleet.get(random.nextInt(VEHICLES));
+                    LocalDateTime from = start.plusMinutes(random.nextInt(SLOTS * 10));
+                    rider.rent(pev, from, from.plusMinutes(1 + random.nextInt(20)));
+                }
+            });
+
+            int booked = 0;
+            for (PEV pev : fleet) {
+                assertNoOverlap(pev.getRentals());
+                booked += pev.getRentalCount();
+            }
+            int riderRentals = 0;
+            for (Rider rider : riders) {
+                riderRentals += rider.getRentals().size();
+            }
+            assertEquals(booked, riderRentals);
+            System.out.printf("%2d threads: %,d bookings/s%n", threads,
+                    (long) threads * BOOKINGS_PER_THREAD * TimeUnit.SECONDS.toNanos(1) / duration);
+        }
+    }
+
+    @Test
+    void testConcurrentRentOfSameSlotHasSingleWinner() throws InterruptedException {
+        PEV pev = new EMoped(100, "M-1");
+        List<Rider> riders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            riders.add(new Rider("R-" + i, 27, true, null));
+        }
+        runConcurrently(riders, rider -> {
+            for (int i = 0; i < SLOTS; i++) {
+                rider.rent(pev, start.plusMinutes(i), start.plusMinutes(i + 1));
+            }
+        });
+        assertEquals(SLOTS, pev.getRentalCount());
+        assertNoOverlap(pev.getRentals());
+    }
+
+    private static void assertNoOverlap(List<Rental> rentals) {
+        List<Rental> sorted = new ArrayList<>(rentals);
+        sorted.sort((a, b) -> a.getFrom().compareTo(b.getFrom()));
+        for (int i = 1; i < sorted.size(); i++) {
+            assertFalse(sorted.get(i).getFrom().isBefore(sorted.get(i - 1).getTo()), "double booking");
+        }
+    }
+
+    private static long runConcurrently(List<Rider> riders, Consumer<Rider> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(riders.size());
+        CountDownLatch ready = new CountDownLatch(riders.size());
+        CountDownLatch go = new CountDownLatch(1);
+        for (Rider rider : riders) {
+            executor.execute(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.accept(rider);
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        go.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,164 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class PEVGridIndexTest {
+
+    private final SimulatedPositionService positionService = new SimulatedPositionService();
+    private final PEVGridIndex index = new PEVGridIndex(10);
+
+    @Test
+    void testIndexFollowsPositionUpdates() {
+        PEV pev = new EBike(80, "M-1");
+        positionService.place(pev, new Position(100, 100, Direction.WEST));
+        index.track(pev, positionService);
+        assertEquals(List.of(pev), index.withinRadius(95, 100, 5, candidate -> true));
+
+        positionService.step();
+        positionService.step();
+        assertEquals(List.of(), index.withinRadius(104, 100, 5, candidate -> true));
+        assertEquals(List.of(pev), index.nearest(0, 0, 3, candidate -> true));
+
+        positionService.place(pev, new Position(0, 0, null));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testQueriesSkipUnavailableAndFilteredPEVs() {
+        PEV locked = new EBike(80, "M-1");
+        PEV eMoped = new EMoped(80, "M-2");
+        PEV eBike = new EBike(80, "M-3");
+        index.update(locked, 1, 1);
+        index.update(eMoped, 2, 2);
+        index.update(eBike, 30, 30);
+        locked.lock();
+
+        assertEquals(List.of(eBike), index.nearest(0, 0, 1, pev -> !(pev instanceof EMoped)));
+        assertEquals(List.of(eMoped), index.withinRadius(0, 0, 10, pev -> true));
+    }
+
+    /*
+     * Places PEVs randomly, moves some of them and compares the results of
+     * the index with a scan over all positions.
+     */
+    @Test
+    void testQueriesMatchLinearScan() {
+        Random random = new Random(7);
+        Map<PEV, int[]> positions = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            PEV pev = new EKickscooter(80, "M-" + i);
+            int[] position = {random.nextInt(500) - 250, random.nextInt(500) - 250};
+            positions.put(pev, position);
+            index.update(pev, position[0], position[1]);
+        }
+        for (PEV pev : positions.keySet()) {
+            if (random.nextBoolean()) {
+                int[] position = {random.nextInt(500) - 250, random.nextInt(500) - 250};
+                positions.put(pev, position);
+                index.update(pev, position[0], position[1]);
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(600) - 300;
+            int y = random.nextInt(600) - 300;
+            List<Long> expected = new ArrayList<>();
+            for (int[] position : positions.values()) {
+                expected.add(distanceSquared(position, x, y));
+            }
+            expected.sort(Comparator.naturalOrder());
+
+            List<PEV> nearest = index.nearest(x, y, 5, pev -> true);
+            assertEquals(expected.subList(0, 5), distances(nearest, positions, x, y));
+            List<PEV> inRadius = index.withinRadius(x, y, 40, pev -> true);
+            assertEquals(expected.stream().filter(distance -> distance <= 1_600).toList(),
+                    distances(inRadius, positions, x, y));
+        }
+    }
+
+    /*
+     * Prints how long radius queries take in a city with 200k PEVs.
+     */
+    @Test
+    void testRadiusQueriesInLargeFleet() {
+        PEVGridIndex cityIndex = new PEVGridIndex(1);
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            cityIndex.update(new EBike(80, "M-" + i), random.nextInt(1_000), random.nextInt(1_000));
+        }
+
+        int queries = 100_000;
+        long found = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            found += cityIndex.withinRadius(random.nextInt(1_000), random.nextInt(1_000), 2, pev -> true).size();
+        }
+        long duration = System.nanoTime() - begin;
+
+        assertTrue(found > 0);
+        System.out.printf("%,d ns per radius query%n", duration / queries);
+        assertTrue(TimeUnit.NANOSECONDS.toMicros(duration / queries) < 100);
+    }
+
+    /*
+     * Queries points far outside a fleet near (50k, 50k), also after the
+     * outermost PEVs left, and expects the rings to start at the fleet
+     * instead of running through all the empty cells in between.
+     */
+    @Test
+    void testNearestFarOutsideFleet() {
+        PEVGridIndex cityIndex = new PEVGridIndex(1);
+        Random random = new Random(13);
+        Map<PEV, int[]> positions = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            PEV pev = new EBike(80, "M-" + i);
+            int[] position = {50_000 + random.nextInt(100), 50_000 + random.nextInt(100)};
+            positions.put(pev, position);
+            cityIndex.update(pev, position[0], position[1]);
+        }
+        PEV outlier = new EBike(80, "M-OUT");
+        cityIndex.update(outlier, 1, 1);
+        assertEquals(List.of(outlier), cityIndex.nearest(0, 0, 1, pev -> true));
+        cityIndex.remove(outlier);
+
+        int queries = 20_000;
+        long begin = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            assertEquals(3, cityIndex.nearest(random.nextInt(1_000), random.nextInt(1_000), 3, pev -> true).size());
+        }
+        long duration = System.nanoTime() - begin;
+
+        long closest = Long.MAX_VALUE;
+        for (int[] position : positions.values()) {
+            closest = Math.min(closest, distanceSquared(position, 0, 0));
+        }
+        assertEquals(List.of(closest), distances(cityIndex.nearest(0, 0, 1, pev -> true), positions, 0, 0));
+        System.out.printf("%,d ns per nearest query outside the fleet%n", duration / queries);
+        assertTrue(TimeUnit.NANOSECONDS.toMicros(duration / queries) < 100);
+    }
+
+    private static List<Long> distances(List<PEV> pevs, Map<PEV, int[]> positions, int x, int y) {
+        List<Long> distances = new ArrayList<>();
+        for (PEV pev : pevs) {
+            distances.add(distanceSquared(positions.get(pev), x, y));
+        }
+        return distances;
+    }
+
+    private static long distanceSquared(int[] position, int x, int y) {
+        long dx = position[0] - x;
+        long dy = position[1] - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,126 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class PEVTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final Rider rider = new Rider("Caio", 27, true, null);
+
+    @Test
+    void testRentRejectsOverlappingTimeFrame() {
+        PEV pev = new EBike(80, "MUC");
+        pev.rent(start, start.plusMinutes(30), rider);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.rent(start.plusMinutes(10), start.plusMinutes(40), rider));
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.rent(start.minusMinutes(10), start.plusMinutes(1), rider));
+        assertEquals(1, pev.getRentals().size());
+    }
+
+    @Test
+    void testGetRentalsIsSnapshot() {
+        PEV pev = new EBike(80, "MUC");
+        Rental first = pev.rent(start, start.plusMinutes(30), rider);
+        List<Rental> snapshot = pev.getRentals();
+        pev.rent(start.plusMinutes(30), start.plusMinutes(60), rider);
+
+        assertEquals(List.of(first), snapshot);
+        assertEquals(2, pev.getRentalCount());
+        assertEquals(2, pev.getRentals().size());
+        assertThrows(UnsupportedOperationException.class, () -> pev.getRentals().clear());
+    }
+
+    /*
+     * Books random time frames and compares every decision of the indexed
+     * booking check with a linear scan over all accepted rentals.
+     */
+    @Test
+    void testRentMatchesLinearScan() {
+        PEV pev = new EKickscooter(50, "M-AB");
+        List<Rental> accepted = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime from = start.plusMinutes(random.nextInt(20_000));
+            LocalDateTime to = from.plusMinutes(1 + random.nextInt(30));
+            boolean expectedBooked = accepted.stream()
+                    .anyMatch(rental -> from.isBefore(rental.getTo()) && rental.getFrom().isBefore(to));
+            try {
+                accepted.add(pev.rent(from, to, rider));
+                assertFalse(expectedBooked);
+            } catch (IllegalArgumentException e) {
+                assertTrue(expectedBooked);
+            }
+        }
+        assertEquals(accepted, pev.getRentals());
+    }
+
+    @Test
+    void testRiderKeepsOnlyAcceptedRentals() {
+        PEV pev = new EBike(80, "MUC");
+        Rider anna = new Rider("Anna", 30, true, null);
+        rider.rent(pev, start, start.plusMinutes(30));
+        anna.rent(pev, start.plusMinutes(10), start.plusMinutes(20));
+        anna.rent(pev, start.plusMinutes(30), start.plusMinutes(60));
+
+        assertEquals(1, rider.getRentals().size());
+        assertEquals(List.of(pev.getRentals().get(1)), anna.getRentals());
+        assertEquals(2, pev.getRentalCount());
+    }
+
+    @Test
+    void testPEVStaysInHashSetWhileItChanges() {
+        PEV pev = new EBike(80, "MUC");
+        Set<PEV> pevs = new HashSet<>(Set.of(pev));
+
+        pev.rent(start, start.plusMinutes(30), rider);
+        pev.setChargeLevel(20);
+        pev.lock();
+
+        assertTrue(pevs.contains(pev));
+        assertEquals(new EMoped(10, "MUC"), pev);
+        assertThrows(IllegalStateException.class, pev::lock);
+        pev.unlock();
+        assertThrows(IllegalStateException.class, pev::unlock);
+    }
+
+    @Test
+    void testContentFingerprintFollowsChanges() {
+        PEV first = new EBike(80, "MUC");
+        PEV second = new EBike(80, "MUC");
+        assertEquals(first.getContentFingerprint(), second.getContentFingerprint());
+
+        long fingerprint = first.getContentFingerprint();
+        first.setChargeLevel(79);
+        assertNotEquals(fingerprint, first.getContentFingerprint());
+        first.setChargeLevel(80);
+        assertEquals(fingerprint, first.getContentFingerprint());
+
+        first.lock();
+        assertNotEquals(fingerprint, first.getContentFingerprint());
+        first.unlock();
+        assertEquals(fingerprint, first.getContentFingerprint());
+
+        first.rent(start, start.plusMinutes(10), rider);
+        first.rent(start.plusMinutes(10), start.plusMinutes(20), rider);
+        second.rent(start.plusMinutes(10), start.plusMinutes(20), rider);
+        assertNotEquals(first.getContentFingerprint(), second.getContentFingerprint());
+        second.rent(start, start.plusMinutes(10), rider);
+        assertEquals(first.getContentFingerprint(), second.getContentFingerprint());
+    }
+}
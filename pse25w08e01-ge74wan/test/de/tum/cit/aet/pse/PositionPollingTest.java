@@ -0,0 +1,126 @@
+package de.tum.cit.aet.pse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class PositionPollingTest {
+
+    // the background thread polls once at the start, the tests poll themselves
+    private final PositionPolling polling = new PositionPolling(3_600_000);
+    private final MovingPositionService service = new MovingPositionService();
+    private final PEV pev = new EBike(80, "MUC");
+
+    @Test
+    void testPassesOnChangedPositionsOnly() throws InterruptedException {
+        awaitFirstPoll();
+        List<Position> positions = new ArrayList<>();
+        polling.subscribe(service, pev, (changed, position) -> positions.add(position));
+
+        polling.pollAll();
+        assertEquals(List.of(new Position(0, 0, Direction.NORTH)), positions);
+        positions.clear();
+        polling.pollAll();
+        polling.pollAll();
+        service.moves.set(true);
+        polling.pollAll();
+
+        assertEquals(1, positions.size());
+        assertEquals(new Position(1, 0, Direction.NORTH), positions.get(0));
+    }
+
+    @Test
+    void testServiceWithoutSubscriptionsIsNotPolled() {
+        PEV other = new EMoped(20, "MUC");
+        PositionListener first = (changed, position) -> { };
+        PositionListener second = (changed, position) -> { };
+        polling.subscribe(service, pev, first);
+        polling.subscribe(service, pev, second);
+        polling.subscribe(service, other, first);
+
+        polling.unsubscribe(service, pev, first);
+        polling.unsubscribe(service, other, first);
+        assertTrue(polling.isPolling(service));
+        polling.unsubscribe(service, pev, second);
+        assertFalse(polling.isPolling(service));
+        polling.unsubscribe(service, pev, second);
+        assertFalse(polling.isPolling(service));
+    }
+
+    /*
+     * Subscribes and unsubscribes one listener of a PEV in a loop while
+     * another listener of the same PEV subscribes, and checks that the
+     * second listener is never lost together with the first one.
+     */
+    @Test
+    void testConcurrentUnsubscribeKeepsOtherListener() throws InterruptedException {
+        awaitFirstPoll();
+        PositionListener churning = (changed, position) -> { };
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread churn = new Thread(() -> {
+            while (running.get()) {
+                polling.subscribe(service, pev, churning);
+                polling.unsubscribe(service, pev, churning);
+            }
+        });
+        churn.start();
+        service.moves.set(true);
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                AtomicInteger notified = new AtomicInteger();
+                PositionListener listener = (changed, position) -> notified.incrementAndGet();
+                polling.subscribe(service, pev, listener);
+                polling.pollAll();
+                assertEquals(1, notified.get(), "listener lost in round " + i);
+                polling.unsubscribe(service, pev, listener);
+            }
+        } finally {
+            running.set(false);
+            churn.join();
+        }
+        assertFalse(polling.isPolling(service));
+    }
+
+    // the background poll must not run together with the ones of the test
+    private void awaitFirstPoll() throws InterruptedException {
+        RealTimePositionService other = new MovingPositionService();
+        CountDownLatch polled = new CountDownLatch(1);
+        PositionListener listener = (changed, position) -> polled.countDown();
+        polling.subscribe(other, pev, listener);
+        assertTrue(polled.await(10, TimeUnit.SECONDS));
+        polling.unsubscribe(other, pev, listener);
+    }
+
+    /**
+     * Moves every PEV one step east on each poll once it is told to.
+     */
+    private static final class MovingPositionService implements RealTimePositionService {
+
+        private final AtomicBoolean moves = new AtomicBoolean();
+        private final AtomicInteger x = new AtomicInteger();
+
+        @Override
+        public int getX(PEV pev) {
+            return moves.get() ? x.incrementAndGet() : x.get();
+        }
+
+        @Override
+        public int getY(PEV pev) {
+            return 0;
+        }
+
+        @Override
+        public Direction getDirection(PEV pev) {
+            return Direction.NORTH;
+        }
+    }
+}
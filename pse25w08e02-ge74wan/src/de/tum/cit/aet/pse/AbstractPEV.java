@@ -0,0 +1,327 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link PEV} that keeps its state and rentals in its own objects.
+ * <p>
+ * Bookings are guarded by the vehicle's own monitor, so concurrent riders
+ * only contend when they book the same vehicle. The {@link PEVState} and the
+ * rental that holds a ride are changed together with a single compare-and-set
+ * and never block.
+ */
+public abstract class AbstractPEV implements PEV, RideControl {
+
+    // the status of every state without a ride, shared so a compare-and-set can expect it
+    private static final Status[] WITHOUT_RIDE = new Status[PEVState.values().length];
+
+    static {
+        for (PEVState state : PEVState.values()) {
+            WITHOUT_RIDE[state.ordinal()] = new Status(state, null);
+        }
+    }
+
+    private int chargeLevel;
+    private final String licensePlate;
+    private final AtomicReference<Status> status;
+    private int pricePerMinute;
+    private final PEVType type;
+    // replaced on every booking, so readers get a consistent snapshot without the monitor
+    private volatile RentalHistory rentals;
+    // rentals keyed by their start, keeping the longest one per start; as accepted rentals never
+    // overlap, a later start always comes with an end that is not earlier
+    private final NavigableMap<LocalDateTime, Rental> bookings;
+    // order-independent combination of all rentals, extended on every booking
+    private long rentalsFingerprint;
+    private volatile long contentFingerprint;
+    private final List<PEVListener> listeners;
+
+    public AbstractPEV(int chargeLevel, String licensePlate) {
+        this(chargeLevel, licensePlate, PEVType.OTHER);
+    }
+
+    protected AbstractPEV(int chargeLevel, String licensePlate, PEVType type) {
+        this.chargeLevel = chargeLevel;
+        this.licensePlate = licensePlate;
+        this.status = new AtomicReference<>(WITHOUT_RIDE[PEVState.AVAILABLE.ordinal()]);
+        this.type = type;
+        rentals = RentalHistory.EMPTY;
+        bookings = new TreeMap<>();
+        listeners = new CopyOnWriteArrayList<>();
+        updateContentFingerprint();
+    }
+
+    @Override
+    public abstract String toString();
+
+    @Override
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    @Override
+    public PEVType getType() {
+        return type;
+    }
+
+    @Override
+    public int getChargeLevel() {
+        return chargeLevel;
+    }
+
+    @Override
+    public void setChargeLevel(int chargeLevel) {
+        synchronized (this) {
+            this.chargeLevel = chargeLevel;
+            updateContentFingerprint();
+        }
+        for (PEVListener listener : listeners) {
+            listener.pevChanged(this);
+        }
+    }
+
+    @Override
+    public PEVState getState() {
+        return status.get().state;
+    }
+
+    /**
+     * Changes the state without a ride holder, so a ride that is ended here
+     * cannot be stopped by its rental any more.
+     */
+    @Override
+    public boolean compareAndSetState(PEVState expected, PEVState next) {
+        if (!expected.canChangeTo(next)) {
+            throw new IllegalArgumentException("A PEV cannot change from " + expected + " to " + next);
+        }
+        while (true) {
+            Status current = status.get();
+            if (current.state != expected) {
+                return false;
+            }
+            if (status.compareAndSet(current, WITHOUT_RIDE[next.ordinal()])) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean startRide(Rental rental) {
+        return status.compareAndSet(WITHOUT_RIDE[PEVState.AVAILABLE.ordinal()], new Status(PEVState.IN_RIDE, rental));
+    }
+
+    @Override
+    public boolean stopRide(Rental rental) {
+        Status current = status.get();
+        return current.rental == rental && rental != null
+                && status.compareAndSet(current, WITHOUT_RIDE[PEVState.AVAILABLE.ordinal()]);
+    }
+
+    @Override
+    public Rental getActiveRental() {
+        return status.get().rental;
+    }
+
+    /**
+     * Returns the rentals in O(1), as the list is replaced on every booking.
+     */
+    @Override
+    public List<Rental> getRentals() {
+        return rentals;
+    }
+
+    @Override
+    public int getRentalCount() {
+        return rentals.size();
+    }
+
+    @Override
+    public int getPricePerMinute() {
+        return pricePerMinute;
+    }
+
+    @Override
+    public void setPricePerMinute(int pricePerMinute) {
+        synchronized (this) {
+            this.pricePerMinute = pricePerMinute;
+            updateContentFingerprint();
+        }
+        for (PEVListener listener : listeners) {
+            listener.pevChanged(this);
+        }
+    }
+
+    @Override
+    public synchronized Rental rent(LocalDateTime from, LocalDateTime to, Rider rider) {
+        if (isBooked(from, to)) {
+            throw new IllegalArgumentException("Already booked!");
+        }
+        Rental rental = new Rental(from, to, this, rider);
+        rentals = rentals.append(rental);
+        bookings.merge(from, rental, (booked, added) -> booked.getTo().isBefore(added.getTo()) ? added : booked);
+        rentalsFingerprint += mix(31L * from.hashCode() + to.hashCode());
+        updateContentFingerprint();
+        for (PEVListener listener : listeners) {
+            try {
+                listener.rentalBooked(rental);
+            } catch (RuntimeException e) {
+                // the rental is booked already, a failing listener must neither undo that nor skip the others
+                System.err.println("Listener failed on a booking: " + e);
+            }
+        }
+        return rental;
+    }
+
+    /**
+     * Checks in O(log n) whether a rental overlaps the given time frame.
+     * Only the latest rental starting before {@code to} can overlap, as it
+     * also ends last among all rentals starting before {@code to}.
+     */
+    @Override
+    public synchronized boolean isBooked(LocalDateTime from, LocalDateTime to) {
+        Map.Entry<LocalDateTime, Rental> latestBefore = bookings.lowerEntry(to);
+        return latestBefore != null && latestBefore.getValue().endsAfter(from);
+    }
+
+    @Override
+    public synchronized long idleSecondsAround(LocalDateTime from, LocalDateTime to) {
+        long idleSeconds = 0;
+        Map.Entry<LocalDateTime, Rental> before = bookings.floorEntry(from);
+        if (before != null) {
+            idleSeconds += Math.max(0, Duration.between(before.getValue().getTo(), from).getSeconds());
+        }
+        Map.Entry<LocalDateTime, Rental> after = bookings.ceilingEntry(to);
+        if (after != null) {
+            idleSeconds += Math.max(0, Duration.between(to, after.getKey()).getSeconds());
+        }
+        return idleSeconds;
+    }
+
+    @Override
+    public void notifyRentalStarted(Rental rental) {
+        for (PEVListener listener : listeners) {
+            listener.rentalStarted(rental);
+        }
+    }
+
+    @Override
+    public void notifyRentalStopped(Rental rental) {
+        for (PEVListener listener : listeners) {
+            listener.rentalStopped(rental);
+        }
+    }
+
+    @Override
+    public void addListener(PEVListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(PEVListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The fingerprint is maintained on every change, so reading it is O(1)
+     * even for a long rental history.
+     */
+    @Override
+    public long getContentFingerprint() {
+        return contentFingerprint ^ mix(getState().ordinal() + 1L);
+    }
+
+    private void updateContentFingerprint() {
+        long hash = Objects.hashCode(licensePlate);
+        hash = 31 * hash + chargeLevel;
+        hash = 31 * hash + pricePerMinute;
+        contentFingerprint = mix(hash) ^ rentalsFingerprint;
+    }
+
+    // finalizer of SplitMix64, spreads every input bit over the whole result
+    static long mix(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * An append-only list of rentals. Appending writes behind the end of the
+     * shared array, which no earlier snapshot reads, so the array is only
+     * copied when it is full.
+     */
+    private static final class RentalHistory extends AbstractList<Rental> implements RandomAccess {
+
+        private static final RentalHistory EMPTY = new RentalHistory(new Rental[0], 0);
+
+        private final Rental[] elements;
+        private final int size;
+
+        private RentalHistory(Rental[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        // only called under the monitor of the PEV, on its latest history
+        private RentalHistory append(Rental rental) {
+            Rental[] target = size < elements.length ? elements : Arrays.copyOf(elements, Math.max(4, size * 2));
+            target[size] = rental;
+            return new RentalHistory(target, size + 1);
+        }
+
+        @Override
+        public Rental get(int index) {
+            Objects.checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * PEVs are identified by their license plate, also across the object
+     * model and views of a {@link ColumnarFleetStore}.
+     */
+    @Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof PEV pev)) {
+			return false;
+		}
+		return Objects.equals(getLicensePlate(), pev.getLicensePlate());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(getLicensePlate());
+	}
+
+    /**
+     * A state and the rental that holds the ride, if the PEV is in one.
+     */
+    private static final class Status {
+
+        private final PEVState state;
+        private final Rental rental;
+
+        private Status(PEVState state, Rental rental) {
+            this.state = state;
+            this.rental = rental;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Decides which of the available PEVs is assigned to a reservation.
+ */
+public interface AssignmentStrategy {
+
+    /**
+     * Chooses one of the candidates for a rental in the given time frame.
+     *
+     * @param candidates  the PEVs the rider may rent in the time frame, not empty
+     * @param from        Start of the time frame
+     * @param to          End of the time frame
+     * @return the PEV to rent, which is one of the candidates
+     */
+    PEV choose(Set<PEV> candidates, LocalDateTime from, LocalDateTime to);
+}
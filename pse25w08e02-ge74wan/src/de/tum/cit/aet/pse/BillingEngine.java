@@ -0,0 +1,112 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bills the completed rentals of many riders in parallel.
+ * <p>
+ * Costs are computed in minor currency units (cents) as whole numbers: a
+ * rental costs the price per minute its PEV had when it was booked, pro rata
+ * for every second it lasted, rounded up to the next cent. The riders are split into chunks on a
+ * fork/join pool, and every chunk sums up its costs in primitive arrays, so
+ * no boxing happens while billing.
+ */
+public class BillingEngine {
+
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int RIDERS_PER_TASK = 256;
+    private static final PEVType[] TYPES = PEVType.values();
+    // index of the rental count behind the totals per type
+    private static final int RENTAL_COUNT = TYPES.length;
+
+    private final ForkJoinPool pool;
+
+    public BillingEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BillingEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Bills all rentals of the riders that ended at or before the cutoff.
+     *
+     * @param riders the riders to bill
+     * @param cutoff rentals ending after this time are not billed yet
+     * @return the totals per rider and per vehicle type
+     */
+    public BillingReport bill(Collection<Rider> riders, LocalDateTime cutoff) {
+        Rider[] billed = riders.toArray(new Rider[0]);
+        long[] riderTotals = new long[billed.length];
+        long[] totals = pool.invoke(new BillingTask(billed, riderTotals, cutoff, 0, billed.length));
+        long[] typeTotals = new long[TYPES.length];
+        System.arraycopy(totals, 0, typeTotals, 0, TYPES.length);
+        return new BillingReport(billed, riderTotals, typeTotals, totals[RENTAL_COUNT]);
+    }
+
+    /**
+     * Computes the cost of a rental.
+     *
+     * @param seconds        the length of the rental
+     * @param pricePerMinute the price in cents per minute
+     * @return the cost in cents, rounded up
+     */
+    public static long cost(long seconds, int pricePerMinute) {
+        return -Math.floorDiv(-Math.multiplyExact(seconds, (long) pricePerMinute), SECONDS_PER_MINUTE);
+    }
+
+    // ForkJoinTask is serializable, but tasks are only run in the pool and never serialized
+    @SuppressWarnings("serial")
+    private static final class BillingTask extends RecursiveTask<long[]> {
+
+        private final Rider[] riders;
+        private final long[] riderTotals;
+        private final LocalDateTime cutoff;
+        private final int from;
+        private final int to;
+
+        private BillingTask(Rider[] riders, long[] riderTotals, LocalDateTime cutoff, int from, int to) {
+            this.riders = riders;
+            this.riderTotals = riderTotals;
+            this.cutoff = cutoff;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > RIDERS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                BillingTask left = new BillingTask(riders, riderTotals, cutoff, from, middle);
+                left.fork();
+                long[] right = new BillingTask(riders, riderTotals, cutoff, middle, to).compute();
+                long[] totals = left.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += right[i];
+                }
+                return totals;
+            }
+
+            long[] totals = new long[RENTAL_COUNT + 1];
+            for (int i = from; i < to; i++) {
+                long riderTotal = 0;
+                for (Rental rental : riders[i].getRentals()) {
+                    if (rental.getTo().isAfter(cutoff)) {
+                        continue;
+                    }
+                    long cost = cost(rental.timeElapsed(), rental.getPricePerMinute());
+                    riderTotal += cost;
+                    totals[rental.getRentedPEV().getType().ordinal()] += cost;
+                    totals[RENTAL_COUNT]++;
+                }
+                // every rider belongs to exactly one task
+                riderTotals[i] = riderTotal;
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.tum.cit.aet.pse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of a {@link BillingEngine} run. All amounts are in cents.
+ */
+public final class BillingReport {
+
+    private final Map<Rider, Long> riderTotals;
+    private final long[] typeTotals;
+    private final long rentalCount;
+    private final long total;
+
+    BillingReport(Rider[] riders, long[] riderTotals, long[] typeTotals, long rentalCount) {
+        Map<Rider, Long> totals = new HashMap<>();
+        for (int i = 0; i < riders.length; i++) {
+            totals.merge(riders[i], riderTotals[i], Long::sum);
+        }
+        long sum = 0;
+        for (long typeTotal : typeTotals) {
+            sum += typeTotal;
+        }
+        this.riderTotals = Collections.unmodifiableMap(totals);
+        this.typeTotals = typeTotals;
+        this.rentalCount = rentalCount;
+        this.total = sum;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getTotal(PEVType type) {
+        return typeTotals[type.ordinal()];
+    }
+
+    /**
+     * @return the amount billed to the rider, or 0 if the rider was not billed
+     */
+    public long getTotal(Rider rider) {
+        return riderTotals.getOrDefault(rider, 0L);
+    }
+
+    public Map<Rider, Long> getRiderTotals() {
+        return riderTotals;
+    }
+
+    public long getRentalCount() {
+        return rentalCount;
+    }
+}
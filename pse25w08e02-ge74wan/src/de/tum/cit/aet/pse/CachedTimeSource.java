@@ -0,0 +1,58 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A coarse time source for hot paths. A background thread reads the system
+ * clock once per resolution, so reading the time is a single volatile read
+ * that neither allocates nor looks up the time zone. The time can lag
+ * behind by up to one resolution.
+ */
+public class CachedTimeSource implements TimeSource, AutoCloseable {
+
+    private static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(10);
+
+    private final TimeSource source;
+    private final ScheduledExecutorService ticker;
+    private volatile long localEpochMillis;
+
+    public CachedTimeSource() {
+        this(TimeSource.system(), DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * @param source     the exact time source to cache
+     * @param resolution how often the cached time is updated
+     */
+    public CachedTimeSource(TimeSource source, Duration resolution) {
+        this.source = source;
+        this.localEpochMillis = source.localEpochMillis();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "cached-time-source");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = resolution.toNanos();
+        ticker.scheduleAtFixedRate(this::tick, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long localEpochMillis() {
+        return localEpochMillis;
+    }
+
+    /**
+     * Stops updating the time.
+     */
+    @Override
+    public void close() {
+        ticker.shutdown();
+    }
+
+    private void tick() {
+        localEpochMillis = source.localEpochMillis();
+    }
+}
@@ -0,0 +1,282 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ReservationService} that caches the answers of another service
+ * for recently asked time windows.
+ * <p>
+ * Time windows are widened to whole slots of a configurable granularity, so
+ * riders asking for nearly the same window share a cache entry. The answer
+ * for a widened window only contains PEVs that are free for the whole slot
+ * range, so a PEV that is booked only in the widened part of the window is
+ * left out. Windows that start and end on slot boundaries are answered
+ * exactly.
+ * <p>
+ * The cache holds a bounded number of windows and evicts the least recently
+ * used one. It listens to every PEV it has handed out, and a booking only
+ * counts up a version of the booked PEV, so it does no work on the cache
+ * while the PEV is locked. An entry remembers the versions of its PEVs, and
+ * when it is hit, the PEVs that were booked since are checked again: the
+ * entry is dropped if one of them is now booked in its window, and kept
+ * otherwise. PEVs added to the underlying service are only seen after
+ * {@link #invalidateAll()}.
+ */
+public class CachingReservationService implements ReservationService, PEVListener {
+
+    private static final Duration DEFAULT_GRANULARITY = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final ReservationService reservationService;
+    private final long granularitySeconds;
+    // guarded by this, only for lookups and updates in O(1)
+    private final Map<Window, Answer> entries;
+    // counted up on every booking of a PEV this cache listens to
+    private final Map<PEV, AtomicLong> bookingVersions;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder invalidations;
+
+    public CachingReservationService(ReservationService reservationService) {
+        this(reservationService, DEFAULT_GRANULARITY, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param reservationService the service to ask on a cache miss
+     * @param granularity        the length of the slots windows are widened to
+     * @param maxEntries         how many windows are cached at most
+     */
+    public CachingReservationService(ReservationService reservationService, Duration granularity, int maxEntries) {
+        if (granularity.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Granularity must be at least one second");
+        }
+        this.reservationService = reservationService;
+        this.granularitySeconds = granularity.getSeconds();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.bookingVersions = new ConcurrentHashMap<>();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Window, Answer> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Set<PEV> findAvailablePEVs(LocalDateTime from, LocalDateTime to) {
+        long fromSlot = Math.floorDiv(from.toEpochSecond(ZoneOffset.UTC), granularitySeconds);
+        long toSlot = -Math.floorDiv(-endSecond(to), granularitySeconds);
+        Window window = new Window(fromSlot * granularitySeconds, toSlot * granularitySeconds);
+        Answer cached;
+        synchronized (this) {
+            cached = entries.get(window);
+        }
+        if (cached != null) {
+            cached = validate(window, cached);
+            if (cached != null) {
+                hits.increment();
+                return new HashSet<>(Arrays.asList(cached.pevs));
+            }
+        }
+        misses.increment();
+
+        Set<PEV> available = reservationService.findAvailablePEVs(window.fromTime(), window.toTime());
+        PEV[] pevs = available.toArray(new PEV[0]);
+        AtomicLong[] versions = new AtomicLong[pevs.length];
+        long[] seenVersions = new long[pevs.length];
+        for (int i = 0; i < pevs.length; i++) {
+            versions[i] = bookingVersion(pevs[i]);
+            seenVersions[i] = versions[i].get();
+        }
+        // bookings made before this cache listened to a PEV are not counted, later ones change the versions
+        for (PEV pev : pevs) {
+            if (pev.isBooked(window.fromTime(), window.toTime())) {
+                return available;
+            }
+        }
+        Answer answer = new Answer(pevs, versions, seenVersions);
+        synchronized (this) {
+            entries.put(window, answer);
+        }
+        return available;
+    }
+
+    /**
+     * Only counts up the version of the booked PEV, the entries are checked
+     * when they are hit.
+     */
+    @Override
+    public void rentalBooked(Rental rental) {
+        AtomicLong version = bookingVersions.get(rental.getRentedPEV());
+        if (version != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all cached windows, e.g. after PEVs were added to the
+     * underlying service.
+     */
+    public synchronized void invalidateAll() {
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return the share of queries answered from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private AtomicLong bookingVersion(PEV pev) {
+        AtomicLong version = bookingVersions.get(pev);
+        if (version == null) {
+            AtomicLong added = new AtomicLong();
+            version = bookingVersions.putIfAbsent(pev, added);
+            if (version == null) {
+                version = added;
+                pev.addListener(this);
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Checks the PEVs of the answer that were booked since it was cached.
+     *
+     * @return the answer with the current versions, or {@code null} if one of
+     * the bookings overlaps the window and the answer was dropped
+     */
+    private Answer validate(Window window, Answer answer) {
+        long[] seenVersions = null;
+        for (int i = 0; i < answer.pevs.length; i++) {
+            long version = answer.versions[i].get();
+            if (version == answer.seenVersions[i]) {
+                continue;
+            }
+            if (answer.pevs[i].isBooked(window.fromTime(), window.toTime())) {
+                synchronized (this) {
+                    if (entries.remove(window, answer)) {
+                        invalidations.increment();
+                    }
+                }
+                return null;
+            }
+            if (seenVersions == null) {
+                seenVersions = answer.seenVersions.clone();
+            }
+            seenVersions[i] = version;
+        }
+        if (seenVersions == null) {
+            return answer;
+        }
+        Answer checked = new Answer(answer.pevs, answer.versions, seenVersions);
+        synchronized (this) {
+            entries.replace(window, answer, checked);
+        }
+        return checked;
+    }
+
+    // rounds up, so a window ending within a second still covers that second
+    private static long endSecond(LocalDateTime to) {
+        long second = to.toEpochSecond(ZoneOffset.UTC);
+        return to.getNano() > 0 ? second + 1 : second;
+    }
+
+    /**
+     * The available PEVs of a window and the versions they had when they
+     * were last known to be free in it.
+     */
+    private static final class Answer {
+
+        private final PEV[] pevs;
+        private final AtomicLong[] versions;
+        private final long[] seenVersions;
+
+        private Answer(PEV[] pevs, AtomicLong[] versions, long[] seenVersions) {
+            this.pevs = pevs;
+            this.versions = versions;
+            this.seenVersions = seenVersions;
+        }
+    }
+
+    /**
+     * A time window in local epoch seconds, aligned to the slots.
+     */
+    private static final class Window {
+
+        private final long from;
+        private final long to;
+
+        private Window(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private LocalDateTime fromTime() {
+            return LocalDateTime.ofEpochSecond(from, 0, ZoneOffset.UTC);
+        }
+
+        private LocalDateTime toTime() {
+            return LocalDateTime.ofEpochSecond(to, 0, ZoneOffset.UTC);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Window window)) {
+                return false;
+            }
+            return from == window.from && to == window.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to);
+        }
+    }
+}
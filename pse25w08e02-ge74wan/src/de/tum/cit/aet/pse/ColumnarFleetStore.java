@@ -0,0 +1,658 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A memory-compact store for the state of a large fleet.
+ * <p>
+ * Instead of one object graph per PEV, the state of all PEVs is kept in
+ * primitive arrays indexed by a vehicle id. The arrays are split into pages
+ * of a fixed number of vehicles, and a page is never moved once it was
+ * created, so adding vehicles does not block the ones already stored. The
+ * rentals of each PEV are kept as two sorted arrays of epoch seconds, so
+ * times are stored with second precision and without riders.
+ * <p>
+ * Like a PEV of the object model, a stored PEV changes its state with a
+ * single compare-and-set, and its bookings are guarded by a lock of its own.
+ * Changes of a ride also change the rental that holds it, so they take the
+ * lock as well.
+ * The locks are striped, so only PEVs that share a stripe contend.
+ * {@link #view(int)} wraps a vehicle id in a {@link PEV} that reads and
+ * writes the arrays, so code written against the object model keeps working.
+ */
+public class ColumnarFleetStore {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int LOCK_STRIPES = 256;
+    private static final long[] NO_RENTALS = new long[0];
+    private static final PEVListener[] NO_LISTENERS = new PEVListener[0];
+    private static final PEVType[] TYPES = PEVType.values();
+    private static final PEVState[] STATES = PEVState.values();
+    private static final int REFERENCE_BYTES = 4;
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final Object[] locks;
+    // written under the monitor of the store, which only guards adding vehicles
+    private volatile Page[] pages;
+    // written after a vehicle is complete, so reading it first makes the vehicle visible
+    private volatile int size;
+
+    public ColumnarFleetStore() {
+        locks = new Object[LOCK_STRIPES];
+        for (int stripe = 0; stripe < LOCK_STRIPES; stripe++) {
+            locks[stripe] = new Object();
+        }
+        pages = new Page[0];
+    }
+
+    /**
+     * Copies a PEV and its rentals into the store. Listeners are not copied.
+     *
+     * @param pev the PEV to copy
+     * @return the id of the stored PEV
+     */
+    public synchronized int addPEV(PEV pev) {
+        int id = addPEV(pev.getType(), pev.getLicensePlate(), pev.getChargeLevel(), pev.getPricePerMinute());
+        page(id).states.set(slot(id), pev.getState().ordinal());
+        for (Rental rental : pev.getRentals()) {
+            rent(id, toEpochSecond(rental.getFrom()), toEpochSecond(rental.getTo()));
+        }
+        return id;
+    }
+
+    public synchronized int addPEV(PEVType type, String licensePlate, int chargeLevel, int pricePerMinute) {
+        int id = size;
+        if (id == pages.length * PAGE_SIZE) {
+            Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = new Page();
+            pages = grown;
+        }
+        Page page = pages[id >>> PAGE_BITS];
+        int slot = slot(id);
+        page.licensePlates[slot] = licensePlate;
+        page.types[slot] = (byte) type.ordinal();
+        page.chargeLevels[slot] = chargeLevel;
+        page.pricesPerMinute[slot] = pricePerMinute;
+        page.states.set(slot, PEVState.AVAILABLE.ordinal());
+        page.rentalStarts[slot] = NO_RENTALS;
+        page.rentalEnds[slot] = NO_RENTALS;
+        page.listeners[slot] = NO_LISTENERS;
+        size = id + 1;
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Books a stored PEV if the time frame is still free. The listeners of
+     * the PEV are told about the booking like for {@link PEV#rent}, with a
+     * rental that does not know its rider.
+     *
+     * @param id    the id of the PEV
+     * @param from  Start of the time frame in epoch seconds
+     * @param to    End of the time frame in epoch seconds
+     * @return whether the PEV was booked
+     */
+    public boolean rent(int id, long from, long to) {
+        return book(id, from, to, null);
+    }
+
+    /**
+     * Books the time frame and tells the listeners about the rental. If no
+     * rental is given, one is only created if there are listeners.
+     */
+    private boolean book(int id, long from, long to, Rental rental) {
+        if (from > to) {
+            throw new IllegalArgumentException();
+        }
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            if (isBooked(page, slot, from, to)) {
+                return false;
+            }
+            long[] starts = page.rentalStarts[slot];
+            long[] ends = page.rentalEnds[slot];
+            int count = page.rentalCounts[slot];
+            if (count == starts.length) {
+                int capacity = Math.max(2, count + (count >> 1));
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                page.rentalStarts[slot] = starts;
+                page.rentalEnds[slot] = ends;
+            }
+            int index = insertionPoint(starts, ends, count, from, to);
+            System.arraycopy(starts, index, starts, index + 1, count - index);
+            System.arraycopy(ends, index, ends, index + 1, count - index);
+            starts[index] = from;
+            ends[index] = to;
+            page.rentalCounts[slot] = count + 1;
+
+            PEVListener[] listeners = page.listeners[slot];
+            if (rental == null && listeners.length > 0) {
+                rental = new Rental(toLocalDateTime(from), toLocalDateTime(to), view(id), null);
+            }
+            for (PEVListener listener : listeners) {
+                try {
+                    listener.rentalBooked(rental);
+                } catch (RuntimeException e) {
+                    // the rental is booked already, a failing listener must neither undo that nor skip the others
+                    System.err.println("Listener failed on a booking: " + e);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Same check as {@link AbstractPEV#isBooked}: rentals are sorted by start
+     * and then end, and as they never overlap, only the last rental starting
+     * before {@code to} can overlap.
+     */
+    public boolean isBooked(int id, long from, long to) {
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            return isBooked(page, slot(id), from, to);
+        }
+    }
+
+    /**
+     * Same as {@link PEV#idleSecondsAround} for a stored PEV.
+     */
+    public long idleSecondsAround(int id, long from, long to) {
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            long[] starts = page.rentalStarts[slot];
+            int count = page.rentalCounts[slot];
+            long idleSeconds = 0;
+            int before = lowerIndex(starts, count, from + 1);
+            if (before >= 0) {
+                idleSeconds += Math.max(0, from - page.rentalEnds[slot][before]);
+            }
+            int after = lowerIndex(starts, count, to) + 1;
+            if (after < count) {
+                idleSeconds += Math.max(0, starts[after] - to);
+            }
+            return idleSeconds;
+        }
+    }
+
+    public String getLicensePlate(int id) {
+        return page(id).licensePlates[slot(id)];
+    }
+
+    public PEVType getType(int id) {
+        return TYPES[page(id).types[slot(id)]];
+    }
+
+    public int getChargeLevel(int id) {
+        return page(id).chargeLevels[slot(id)];
+    }
+
+    public void setChargeLevel(int id, int chargeLevel) {
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            page.chargeLevels[slot(id)] = chargeLevel;
+        }
+        notifyPEVChanged(id);
+    }
+
+    public int getPricePerMinute(int id) {
+        return page(id).pricesPerMinute[slot(id)];
+    }
+
+    public void setPricePerMinute(int id, int pricePerMinute) {
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            page.pricesPerMinute[slot(id)] = pricePerMinute;
+        }
+        notifyPEVChanged(id);
+    }
+
+    public boolean isAvailable(int id) {
+        return getState(id) == PEVState.AVAILABLE;
+    }
+
+    public PEVState getState(int id) {
+        return STATES[page(id).states.get(slot(id))];
+    }
+
+    /**
+     * Same as {@link PEV#compareAndSetState} for a stored PEV.
+     */
+    public boolean compareAndSetState(int id, PEVState expected, PEVState next) {
+        if (!expected.canChangeTo(next)) {
+            throw new IllegalArgumentException("A PEV cannot change from " + expected + " to " + next);
+        }
+        Page page = page(id);
+        int slot = slot(id);
+        if (expected != PEVState.IN_RIDE) {
+            return page.states.compareAndSet(slot, expected.ordinal(), next.ordinal());
+        }
+        // a ride that ends here loses its holder, so its rental cannot stop a later ride
+        synchronized (stripe(id)) {
+            if (!page.states.compareAndSet(slot, expected.ordinal(), next.ordinal())) {
+                return false;
+            }
+            page.rides[slot] = null;
+            return true;
+        }
+    }
+
+    /**
+     * Same as {@link RideControl#startRide} for a stored PEV.
+     */
+    boolean startRide(int id, Rental rental) {
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            if (!page.states.compareAndSet(slot, PEVState.AVAILABLE.ordinal(), PEVState.IN_RIDE.ordinal())) {
+                return false;
+            }
+            page.rides[slot] = rental;
+            return true;
+        }
+    }
+
+    /**
+     * Same as {@link RideControl#stopRide} for a stored PEV.
+     */
+    boolean stopRide(int id, Rental rental) {
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            if (rental == null || page.rides[slot] != rental
+                    || !page.states.compareAndSet(slot, PEVState.IN_RIDE.ordinal(), PEVState.AVAILABLE.ordinal())) {
+                return false;
+            }
+            page.rides[slot] = null;
+            return true;
+        }
+    }
+
+    /**
+     * Same as {@link PEV#getActiveRental} for a stored PEV.
+     */
+    public Rental getActiveRental(int id) {
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            return page.rides[slot(id)];
+        }
+    }
+
+    public void lock(int id) {
+        if (!compareAndSetState(id, PEVState.AVAILABLE, PEVState.IN_RIDE)) {
+            throw new IllegalStateException("Already locked");
+        }
+    }
+
+    public void unlock(int id) {
+        if (!compareAndSetState(id, PEVState.IN_RIDE, PEVState.AVAILABLE)) {
+            throw new IllegalStateException(isAvailable(id) ? "Already unlocked" : "Not in a ride");
+        }
+    }
+
+    public int getRentalCount(int id) {
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            return page.rentalCounts[slot(id)];
+        }
+    }
+
+    /**
+     * Registers a listener for a stored PEV. Listeners are kept per PEV, so
+     * all views of the PEV share them.
+     */
+    public void addListener(int id, PEVListener listener) {
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            PEVListener[] listeners = page.listeners[slot];
+            PEVListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+            added[listeners.length] = listener;
+            page.listeners[slot] = added;
+        }
+    }
+
+    public void removeListener(int id, PEVListener listener) {
+        Page page = page(id);
+        int slot = slot(id);
+        synchronized (stripe(id)) {
+            PEVListener[] listeners = page.listeners[slot];
+            int index = Arrays.asList(listeners).indexOf(listener);
+            if (index < 0) {
+                return;
+            }
+            PEVListener[] removed = Arrays.copyOf(listeners, listeners.length - 1);
+            System.arraycopy(listeners, index + 1, removed, index, removed.length - index);
+            page.listeners[slot] = removed;
+        }
+    }
+
+    /**
+     * @return a {@link PEV} backed by the arrays of this store, which holds
+     * nothing but the id
+     */
+    public PEV view(int id) {
+        page(id);
+        return new PEVView(id);
+    }
+
+    /**
+     * Sums up the memory used by this store, assuming compressed references
+     * and 8 byte alignment. The license plate strings and the listeners are
+     * not included, as the object model needs them as well.
+     *
+     * @return the approximate footprint in bytes
+     */
+    public long footprintBytes() {
+        Page[] allPages = pages;
+        int count = size;
+        long bytes = align(OBJECT_HEADER_BYTES + 3L * REFERENCE_BYTES)
+                + referenceArrayBytes(LOCK_STRIPES) + LOCK_STRIPES * align(OBJECT_HEADER_BYTES)
+                + referenceArrayBytes(allPages.length);
+        bytes += allPages.length * Page.BYTES;
+        for (int id = 0; id < count; id++) {
+            Page page = allPages[id >>> PAGE_BITS];
+            int slot = slot(id);
+            synchronized (stripe(id)) {
+                if (page.rentalStarts[slot] != NO_RENTALS) {
+                    bytes += 2 * align(ARRAY_HEADER_BYTES + (long) page.rentalStarts[slot].length * Long.BYTES);
+                }
+                if (page.listeners[slot] != NO_LISTENERS) {
+                    bytes += referenceArrayBytes(page.listeners[slot].length);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private Page page(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No PEV with id " + id);
+        }
+        return pages[id >>> PAGE_BITS];
+    }
+
+    private Object stripe(int id) {
+        return locks[id & (LOCK_STRIPES - 1)];
+    }
+
+    private void notifyPEVChanged(int id) {
+        PEVListener[] listeners;
+        Page page = page(id);
+        synchronized (stripe(id)) {
+            listeners = page.listeners[slot(id)];
+        }
+        if (listeners.length > 0) {
+            PEV pev = view(id);
+            for (PEVListener listener : listeners) {
+                listener.pevChanged(pev);
+            }
+        }
+    }
+
+    private static boolean isBooked(Page page, int slot, long from, long to) {
+        int before = lowerIndex(page.rentalStarts[slot], page.rentalCounts[slot], to);
+        return before >= 0 && from < page.rentalEnds[slot][before];
+    }
+
+    private static int insertionPoint(long[] starts, long[] ends, int count, long from, long to) {
+        int index = lowerIndex(starts, count, from) + 1;
+        while (index < count && starts[index] == from && ends[index] <= to) {
+            index++;
+        }
+        return index;
+    }
+
+    // index of the last start that is smaller than the key, or -1
+    private static int lowerIndex(long[] starts, int count, long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private static int slot(int id) {
+        return id & (PAGE_SIZE - 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long referenceArrayBytes(long length) {
+        return align(ARRAY_HEADER_BYTES + length * REFERENCE_BYTES);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * The columns of one page of vehicles.
+     */
+    private static final class Page {
+
+        // the page itself, its AtomicIntegerArray and all columns
+        private static final long BYTES = align(OBJECT_HEADER_BYTES + 10L * REFERENCE_BYTES)
+                + align(OBJECT_HEADER_BYTES + REFERENCE_BYTES)
+                + 6 * referenceArrayBytes(PAGE_SIZE)
+                + align(ARRAY_HEADER_BYTES + (long) PAGE_SIZE * Byte.BYTES)
+                + 4 * align(ARRAY_HEADER_BYTES + (long) PAGE_SIZE * Integer.BYTES);
+
+        private final String[] licensePlates = new String[PAGE_SIZE];
+        private final byte[] types = new byte[PAGE_SIZE];
+        private final int[] chargeLevels = new int[PAGE_SIZE];
+        private final int[] pricesPerMinute = new int[PAGE_SIZE];
+        private final AtomicIntegerArray states = new AtomicIntegerArray(PAGE_SIZE);
+        private final int[] rentalCounts = new int[PAGE_SIZE];
+        private final long[][] rentalStarts = new long[PAGE_SIZE][];
+        private final long[][] rentalEnds = new long[PAGE_SIZE][];
+        private final PEVListener[][] listeners = new PEVListener[PAGE_SIZE][];
+        // the rental that holds the ride of each vehicle, guarded by its stripe
+        private final Rental[] rides = new Rental[PAGE_SIZE];
+    }
+
+    /**
+     * A flyweight PEV that only holds its id and delegates to the store.
+     * Rentals are materialized on demand. They do not know their rider, and
+     * as the store keeps no prices per rental, they carry the current price.
+     */
+    private final class PEVView implements PEV, RideControl {
+
+        private final int id;
+
+        private PEVView(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getLicensePlate() {
+            return ColumnarFleetStore.this.getLicensePlate(id);
+        }
+
+        @Override
+        public PEVType getType() {
+            return ColumnarFleetStore.this.getType(id);
+        }
+
+        @Override
+        public int getChargeLevel() {
+            return ColumnarFleetStore.this.getChargeLevel(id);
+        }
+
+        @Override
+        public void setChargeLevel(int chargeLevel) {
+            ColumnarFleetStore.this.setChargeLevel(id, chargeLevel);
+        }
+
+        @Override
+        public int getPricePerMinute() {
+            return ColumnarFleetStore.this.getPricePerMinute(id);
+        }
+
+        @Override
+        public void setPricePerMinute(int pricePerMinute) {
+            ColumnarFleetStore.this.setPricePerMinute(id, pricePerMinute);
+        }
+
+        @Override
+        public PEVState getState() {
+            return ColumnarFleetStore.this.getState(id);
+        }
+
+        @Override
+        public boolean compareAndSetState(PEVState expected, PEVState next) {
+            return ColumnarFleetStore.this.compareAndSetState(id, expected, next);
+        }
+
+        @Override
+        public boolean startRide(Rental rental) {
+            return ColumnarFleetStore.this.startRide(id, rental);
+        }
+
+        @Override
+        public boolean stopRide(Rental rental) {
+            return ColumnarFleetStore.this.stopRide(id, rental);
+        }
+
+        @Override
+        public Rental getActiveRental() {
+            return ColumnarFleetStore.this.getActiveRental(id);
+        }
+
+        @Override
+        public List<Rental> getRentals() {
+            Page page = page(id);
+            int slot = slot(id);
+            synchronized (stripe(id)) {
+                List<Rental> rentals = new ArrayList<>(page.rentalCounts[slot]);
+                for (int index = 0; index < page.rentalCounts[slot]; index++) {
+                    rentals.add(new Rental(toLocalDateTime(page.rentalStarts[slot][index]),
+                            toLocalDateTime(page.rentalEnds[slot][index]), this, null));
+                }
+                return Collections.unmodifiableList(rentals);
+            }
+        }
+
+        @Override
+        public int getRentalCount() {
+            return ColumnarFleetStore.this.getRentalCount(id);
+        }
+
+        @Override
+        public Rental rent(LocalDateTime from, LocalDateTime to, Rider rider) {
+            Rental rental = new Rental(from, to, this, rider);
+            if (!book(id, toEpochSecond(from), toEpochSecond(to), rental)) {
+                throw new IllegalArgumentException("Already booked!");
+            }
+            return rental;
+        }
+
+        @Override
+        public boolean isBooked(LocalDateTime from, LocalDateTime to) {
+            return ColumnarFleetStore.this.isBooked(id, toEpochSecond(from), toEpochSecond(to));
+        }
+
+        @Override
+        public long idleSecondsAround(LocalDateTime from, LocalDateTime to) {
+            return ColumnarFleetStore.this.idleSecondsAround(id, toEpochSecond(from), toEpochSecond(to));
+        }
+
+        @Override
+        public void addListener(PEVListener listener) {
+            ColumnarFleetStore.this.addListener(id, listener);
+        }
+
+        @Override
+        public void removeListener(PEVListener listener) {
+            ColumnarFleetStore.this.removeListener(id, listener);
+        }
+
+        @Override
+        public void notifyRentalStarted(Rental rental) {
+            for (PEVListener listener : listeners()) {
+                listener.rentalStarted(rental);
+            }
+        }
+
+        @Override
+        public void notifyRentalStopped(Rental rental) {
+            for (PEVListener listener : listeners()) {
+                listener.rentalStopped(rental);
+            }
+        }
+
+        private PEVListener[] listeners() {
+            Page page = page(id);
+            synchronized (stripe(id)) {
+                return page.listeners[slot(id)];
+            }
+        }
+
+        /**
+         * Unlike the one of the object model, this fingerprint is calculated
+         * in O(n) for n rentals.
+         */
+        @Override
+        public long getContentFingerprint() {
+            Page page = page(id);
+            int slot = slot(id);
+            long hash = Objects.hashCode(getLicensePlate());
+            synchronized (stripe(id)) {
+                hash = 31 * hash + page.chargeLevels[slot];
+                hash = 31 * hash + page.pricesPerMinute[slot];
+                hash = AbstractPEV.mix(hash);
+                for (int index = 0; index < page.rentalCounts[slot]; index++) {
+                    hash += AbstractPEV.mix(31 * page.rentalStarts[slot][index] + page.rentalEnds[slot][index]);
+                }
+            }
+            return hash ^ AbstractPEV.mix(getState().ordinal() + 1L);
+        }
+
+        @Override
+        public String toString() {
+            return getType() + " " + getLicensePlate() + " with charge level of " + getChargeLevel();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PEV pev)) {
+                return false;
+            }
+            return Objects.equals(getLicensePlate(), pev.getLicensePlate());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getLicensePlate());
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package de.tum.cit.aet.pse;
 
-public class EBike extends PEV {
+public class EBike extends AbstractPEV {
 
     private static final int PRICE_PER_MIN = 3;
 
     public EBike(int chargeLevel, String licensePlate) {
-        super(chargeLevel, licensePlate);
+        super(chargeLevel, licensePlate, PEVType.EBIKE);
         setPricePerMinute(PRICE_PER_MIN);
     }
 
@@ -1,11 +1,11 @@
 package de.tum.cit.aet.pse;
 
-public class EKickscooter extends PEV {
+public class EKickscooter extends AbstractPEV {
 
     private static final int PRICE_PER_MIN = 2;
 
     public EKickscooter(int chargeLevel, String licensePlate) {
-        super(chargeLevel, licensePlate);
+        super(chargeLevel, licensePlate, PEVType.EKICKSCOOTER);
         setPricePerMinute(PRICE_PER_MIN);
     }
 
@@ -1,11 +1,11 @@
 package de.tum.cit.aet.pse;
 
-public class EMoped extends PEV {
+public class EMoped extends AbstractPEV {
 
     private static final int PRICE_PER_MIN = 5;
 
     public EMoped(int chargeLevel, String licensePlate) {
-        super(chargeLevel, licensePlate);
+        super(chargeLevel, licensePlate, PEVType.EMOPED);
         setPricePerMinute(PRICE_PER_MIN);
     }
 
@@ -0,0 +1,15 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Assigns whichever candidate the set returns first.
+ */
+public class FirstFoundAssignmentStrategy implements AssignmentStrategy {
+
+    @Override
+    public PEV choose(Set<PEV> candidates, LocalDateTime from, LocalDateTime to) {
+        return candidates.iterator().next();
+    }
+}
@@ -0,0 +1,256 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link ReservationService} that keeps a time-bucketed availability index
+ * for the whole fleet.
+ * <p>
+ * Time is split into slots of fixed length. For every slot that contains
+ * bookings, a bitset records which vehicles are booked during that slot. A
+ * query ORs the bitsets of the slots it covers, so its cost depends on the
+ * length of the time frame and not on the rental history. Only vehicles that
+ * are booked in a slot the time frame covers partially are checked exactly.
+ * <p>
+ * Bookings are indexed without a lock: the bits of a slot are set with
+ * atomic operations, so bookings of many vehicles neither wait for each
+ * other nor for queries.
+ */
+public class InMemoryReservationService implements ReservationService {
+
+    private static final Duration DEFAULT_SLOT_LENGTH = Duration.ofMinutes(15);
+
+    private final long slotSeconds;
+    // vehicles by id, grown by doubling; ids below fleetSize never change, so a
+    // copy of the reference taken under the lock can be read without it
+    private PEV[] fleet;
+    private int fleetSize;
+    private final NavigableMap<Long, AtomicBits> bookedBySlot;
+    // vehicles with zero-length rentals, which can only be checked exactly
+    private final AtomicBits withInstantRentals;
+    // slots before this one were pruned and cannot be queried anymore; a booking that races a
+    // prune may index such a slot again, it is never queried and dropped by the next prune
+    private volatile long firstIndexedSlot;
+    // guards the fleet, and keeps pruning from removing slots a query reads
+    private final ReadWriteLock lock;
+
+    public InMemoryReservationService() {
+        this(DEFAULT_SLOT_LENGTH);
+    }
+
+    public InMemoryReservationService(Duration slotLength) {
+        if (slotLength.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Slot length must be at least one second");
+        }
+        this.slotSeconds = slotLength.getSeconds();
+        this.fleet = new PEV[16];
+        this.bookedBySlot = new ConcurrentSkipListMap<>();
+        this.withInstantRentals = new AtomicBits();
+        this.firstIndexedSlot = Long.MIN_VALUE;
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds a PEV to the fleet. Its existing rentals are indexed and later
+     * bookings are picked up automatically.
+     *
+     * @param pev the PEV to add
+     */
+    public void addPEV(PEV pev) {
+        int id;
+        lock.writeLock().lock();
+        try {
+            id = fleetSize;
+            if (id == fleet.length) {
+                fleet = Arrays.copyOf(fleet, id * 2);
+            }
+            fleet[fleetSize++] = pev;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // register first so that no booking is missed; indexing a rental twice is harmless
+        pev.addListener(rental -> markBooked(id, rental));
+        for (Rental rental : pev.getRentals()) {
+            markBooked(id, rental);
+        }
+    }
+
+    public List<PEV> getFleet() {
+        lock.readLock().lock();
+        try {
+            return List.of(Arrays.copyOf(fleet, fleetSize));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the time frame starts before the
+     *                                  history that was pruned
+     */
+    @Override
+    public Set<PEV> findAvailablePEVs(LocalDateTime from, LocalDateTime to) {
+        long fromSeconds = ceilSeconds(from);
+        long toSeconds = to.toEpochSecond(ZoneOffset.UTC);
+        long firstSlot = firstSlot(from);
+        long lastSlot = lastSlot(from, to);
+
+        PEV[] pevs;
+        int pevCount;
+        long[] bookedWords;
+        long[] uncertainWords;
+        lock.readLock().lock();
+        try {
+            if (firstSlot < firstIndexedSlot) {
+                throw new IllegalArgumentException("The history before " + from + " was pruned");
+            }
+            pevs = fleet;
+            pevCount = fleetSize;
+            bookedWords = new long[(pevCount + Long.SIZE - 1) / Long.SIZE];
+            uncertainWords = new long[bookedWords.length];
+            for (Map.Entry<Long, AtomicBits> slot : bookedBySlot.subMap(firstSlot, true, lastSlot, true).entrySet()) {
+                long slotStart = slot.getKey() * slotSeconds;
+                if (fromSeconds <= slotStart && slotStart + slotSeconds <= toSeconds) {
+                    slot.getValue().orInto(bookedWords);
+                } else {
+                    slot.getValue().orInto(uncertainWords);
+                }
+            }
+            withInstantRentals.orInto(uncertainWords);
+        } finally {
+            lock.readLock().unlock();
+        }
+        BitSet booked = BitSet.valueOf(bookedWords);
+        BitSet uncertain = BitSet.valueOf(uncertainWords);
+
+        // exact checks lock single vehicles, which must not happen while holding the index lock
+        Set<PEV> availablePEVs = new HashSet<>();
+        for (int id = booked.nextClearBit(0); id < pevCount; id = booked.nextClearBit(id + 1)) {
+            PEV pev = pevs[id];
+            if (!uncertain.get(id) || !pev.isBooked(from, to)) {
+                availablePEVs.add(pev);
+            }
+        }
+        return availablePEVs;
+    }
+
+    /**
+     * Drops the index for all slots that end before the given point in time.
+     * Queries for time frames that start in a pruned slot are rejected, as
+     * they would no longer see the pruned bookings.
+     *
+     * @param before the point in time before which history is not queried anymore
+     */
+    public void pruneBefore(LocalDateTime before) {
+        lock.writeLock().lock();
+        try {
+            long slot = firstSlot(before);
+            if (slot > firstIndexedSlot) {
+                firstIndexedSlot = slot;
+                bookedBySlot.headMap(slot).clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markBooked(int id, Rental rental) {
+        if (!rental.getFrom().isBefore(rental.getTo())) {
+            withInstantRentals.set(id);
+            return;
+        }
+        long lastSlot = lastSlot(rental.getFrom(), rental.getTo());
+        for (long slot = Math.max(firstSlot(rental.getFrom()), firstIndexedSlot); slot <= lastSlot; slot++) {
+            bookedBySlot.computeIfAbsent(slot, key -> new AtomicBits()).set(id);
+        }
+    }
+
+    private long firstSlot(LocalDateTime from) {
+        return Math.floorDiv(from.toEpochSecond(ZoneOffset.UTC), slotSeconds);
+    }
+
+    private long lastSlot(LocalDateTime from, LocalDateTime to) {
+        return Math.max(firstSlot(from), Math.floorDiv(ceilSeconds(to) + slotSeconds - 1, slotSeconds) - 1);
+    }
+
+    private static long ceilSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + (time.getNano() > 0 ? 1 : 0);
+    }
+
+    /**
+     * The ids of the vehicles booked in one slot. Bits are set with atomic
+     * operations on blocks of words that are never copied, so growing the
+     * set cannot lose a bit that is set at the same time.
+     */
+    private static final class AtomicBits {
+
+        private static final int WORDS_PER_BLOCK = 16;
+        private static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE;
+
+        // blocks are only added and replaced under the monitor of this set
+        private volatile AtomicLongArray[] blocks = new AtomicLongArray[1];
+
+        void set(int id) {
+            AtomicLongArray block = block(id / BITS_PER_BLOCK);
+            int word = id % BITS_PER_BLOCK / Long.SIZE;
+            long mask = 1L << id;
+            long bits = block.get(word);
+            while ((bits & mask) == 0 && !block.compareAndSet(word, bits, bits | mask)) {
+                bits = block.get(word);
+            }
+        }
+
+        /**
+         * Sets the bits of this set in the given words, as far as they reach.
+         */
+        void orInto(long[] words) {
+            AtomicLongArray[] current = blocks;
+            for (int index = 0; index < current.length && index * WORDS_PER_BLOCK < words.length; index++) {
+                AtomicLongArray block = current[index];
+                if (block == null) {
+                    continue;
+                }
+                int offset = index * WORDS_PER_BLOCK;
+                for (int word = 0; word < WORDS_PER_BLOCK && offset + word < words.length; word++) {
+                    words[offset + word] |= block.get(word);
+                }
+            }
+        }
+
+        private AtomicLongArray block(int index) {
+            AtomicLongArray[] current = blocks;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+            return addBlock(index);
+        }
+
+        private synchronized AtomicLongArray addBlock(int index) {
+            AtomicLongArray[] current = blocks;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new AtomicLongArray(WORDS_PER_BLOCK);
+            }
+            // publishes the new block, also if the array was not copied
+            blocks = current;
+            return current[index];
+        }
+    }
+}
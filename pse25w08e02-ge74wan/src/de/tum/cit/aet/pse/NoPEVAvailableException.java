@@ -7,8 +7,10 @@ public class NoPEVAvailableException extends RuntimeException {
 	@Serial
     private static final long serialVersionUID = -4688966598416340808L;
 
+    static final String MESSAGE = "No PEV found for the specified time frame!";
+
 	public NoPEVAvailableException() {
-        super("No PEV found for the specified time frame!");
+        super(MESSAGE);
     }
 
 }
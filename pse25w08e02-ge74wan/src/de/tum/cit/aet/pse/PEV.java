@@ -1,102 +1,121 @@
 package de.tum.cit.aet.pse;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
-public abstract class PEV {
+/**
+ * A personal electric vehicle.
+ * <p>
+ * {@link AbstractPEV} keeps the state of a vehicle in its own objects, while
+ * {@link ColumnarFleetStore} keeps the state of a whole fleet in primitive
+ * arrays and hands out views of single vehicles. PEVs are identified by
+ * their license plate, so a PEV keeps its place in hash based collections
+ * while it is rented, locked or charged.
+ */
+public interface PEV {
 
-    private int chargeLevel;
-    private final String licensePlate;
-    private boolean available;
-    private int pricePerMinute;
-    private final List<Rental> rentals;
+    String getLicensePlate();
 
-    public PEV(int chargeLevel, String licensePlate) {
-        this.chargeLevel = chargeLevel;
-        this.licensePlate = licensePlate;
-        this.available = true;
-        rentals = new ArrayList<>();
-    }
-
-    @Override
-    public abstract String toString();
-
-    public String getLicensePlate() {
-        return licensePlate;
-    }
+    PEVType getType();
 
-    public int getChargeLevel() {
-        return chargeLevel;
-    }
-
-    public void setChargeLevel(int chargeLevel) {
-        this.chargeLevel = chargeLevel;
-    }
+    int getChargeLevel();
 
-    public boolean isAvailable() {
-        return available;
-    }
+    void setChargeLevel(int chargeLevel);
 
-    public List<Rental> getRentals() {
-        return rentals;
-    }
+    int getPricePerMinute();
 
-    public int getPricePerMinute() {
-        return pricePerMinute;
-    }
+    void setPricePerMinute(int pricePerMinute);
 
-    public void setPricePerMinute(int pricePerMinute) {
-        this.pricePerMinute = pricePerMinute;
+    default boolean isAvailable() {
+        return getState() == PEVState.AVAILABLE;
     }
 
-    public void lock() {
-        if (!available) {
+    PEVState getState();
+
+    /**
+     * Atomically changes the state if it is still the expected one.
+     *
+     * @param expected the state the PEV has to be in
+     * @param next     the new state
+     * @return whether the state was changed
+     * @throws IllegalArgumentException if the transition is not allowed
+     */
+    boolean compareAndSetState(PEVState expected, PEVState next);
+
+    /**
+     * Starts a ride, which is only possible while the PEV is available. The
+     * ride is not held by a rental, so only {@link #unlock()} ends it.
+     */
+    default void lock() {
+        if (!compareAndSetState(PEVState.AVAILABLE, PEVState.IN_RIDE)) {
             throw new IllegalStateException("Already locked");
         }
-        available = false;
-    }
-
-    public void unlock() {
-        if (available) {
-            throw new IllegalStateException("Already unlocked");
-        }
-        available = true;
     }
 
-    public Rental rent(LocalDateTime from, LocalDateTime to, Rider rider) {
-        if (isBooked(from, to)) {
-            throw new IllegalArgumentException("Already booked!");
+    /**
+     * Ends a ride and makes the PEV available again.
+     */
+    default void unlock() {
+        if (!compareAndSetState(PEVState.IN_RIDE, PEVState.AVAILABLE)) {
+            throw new IllegalStateException(isAvailable() ? "Already unlocked" : "Not in a ride");
         }
-        Rental rental = new Rental(from, to, this, rider);
-        rentals.add(rental);
-        return rental;
-    }
-
-    private boolean isBooked(LocalDateTime from, LocalDateTime to) {
-        return rentals.stream().anyMatch(rental -> from.isBefore(rental.getTo()) && rental.getFrom().isBefore(to));
     }
 
-    public void ride() {
+    /**
+     * Returns the rentals of this PEV in booking order. The list is an
+     * unmodifiable snapshot that does not see later bookings.
+     *
+     * @return a snapshot of all rentals of this PEV in booking order
+     */
+    List<Rental> getRentals();
+
+    /**
+     * @return how many rentals this PEV has, in O(1)
+     */
+    int getRentalCount();
+
+    /**
+     * Atomically checks that the time frame is still free and books it.
+     *
+     * @throws IllegalArgumentException if the time frame overlaps an existing rental
+     */
+    Rental rent(LocalDateTime from, LocalDateTime to, Rider rider);
+
+    /**
+     * @return whether a rental overlaps the given time frame
+     */
+    boolean isBooked(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Measures how much idle time a rental for the given time frame would
+     * leave between it and the neighbouring rentals of this PEV. Open-ended
+     * free time before the first or after the last rental is not counted.
+     *
+     * @param from  Start of the time frame
+     * @param to    End of the time frame
+     * @return the idle time in seconds enclosed by the neighbouring rentals
+     */
+    long idleSecondsAround(LocalDateTime from, LocalDateTime to);
+
+    void addListener(PEVListener listener);
+
+    void removeListener(PEVListener listener);
+
+    /**
+     * @return the rental that holds the current ride, or {@code null} if there is none
+     */
+    Rental getActiveRental();
+
+    default void ride() {
         System.out.println("Riding " + toString());
     }
-    
-    @Override
-	public boolean equals(Object o) {
-		if (this == o) {
-			return true;
-		}
-		if (!(o instanceof PEV pev)) {
-			return false;
-		}
-		return getChargeLevel() == pev.getChargeLevel() && isAvailable() == pev.isAvailable()
-		       && getPricePerMinute() == pev.getPricePerMinute() && Objects.equals(getLicensePlate(), pev.getLicensePlate())
-		       && getRentals().equals(pev.getRentals());
-	}
-
-	@Override
-	public int hashCode() {
-		return Objects.hash(getChargeLevel(), getLicensePlate(), isAvailable(), getPricePerMinute(), getRentals());
-	}
+
+    /**
+     * Returns a fingerprint of the whole state of this PEV, including all
+     * rentals. Equal fingerprints indicate, but do not guarantee, equal
+     * content.
+     *
+     * @return the current content fingerprint
+     */
+    long getContentFingerprint();
 }
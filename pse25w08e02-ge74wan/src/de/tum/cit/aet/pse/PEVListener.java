@@ -0,0 +1,42 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * Observer that gets notified about changes of a {@link PEV}.
+ */
+@FunctionalInterface
+public interface PEVListener {
+
+    /**
+     * Called after a rental was booked on a PEV. The call happens while the
+     * PEV is locked, so listeners must not block on other bookings. The
+     * booking is committed already: an exception thrown here is reported and
+     * does not keep the other listeners from being called.
+     *
+     * @param rental the rental that was just booked
+     */
+    void rentalBooked(Rental rental);
+
+    /**
+     * Called after the charge level or the price of a PEV changed.
+     *
+     * @param pev the changed PEV
+     */
+    default void pevChanged(PEV pev) {
+    }
+
+    /**
+     * Called after a rider started a rental of a PEV.
+     *
+     * @param rental the started rental
+     */
+    default void rentalStarted(Rental rental) {
+    }
+
+    /**
+     * Called after a rider stopped a rental of a PEV.
+     *
+     * @param rental the stopped rental
+     */
+    default void rentalStopped(Rental rental) {
+    }
+}
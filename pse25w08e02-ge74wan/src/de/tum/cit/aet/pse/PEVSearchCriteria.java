@@ -1,35 +1,176 @@
 package de.tum.cit.aet.pse;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
+/**
+ * The restrictions of a rider, precompiled into a bit mask of the
+ * {@link PEVType}s the rider is allowed to rent.
+ */
 public class PEVSearchCriteria {
 
     private static final int AGE = 16;
-    private final boolean ageRestriction;
-    private final boolean validDriversLicense;
-    private final boolean helmetAvailable;
+    private final int allowedTypes;
+    // local epoch second at which the rider's license expires, if it is valid now
+    private final long validUntilEpochSecond;
 
+    /**
+     * Evaluates the restrictions of the rider at the current time of the
+     * rider's time source.
+     */
     public PEVSearchCriteria(Rider rider) {
+        this(rider, rider.getTimeSource().now());
+    }
+
+    private PEVSearchCriteria(Rider rider, LocalDateTime now) {
         this(rider.getAge() >= AGE,
                 rider.getDriversLicense() != null
                         &&
-                        rider.getDriversLicense().getValidUntil().isAfter(LocalDateTime.now()), rider.hasHelmet());
+                        rider.getDriversLicense().getValidUntil().isAfter(now), rider.hasHelmet(),
+                rider.getDriversLicense());
     }
 
-    private PEVSearchCriteria(boolean ageRestriction, boolean validDriversLicense, boolean helmetAvailable) {
-        this.ageRestriction = ageRestriction;
-        this.validDriversLicense = validDriversLicense;
-        this.helmetAvailable = helmetAvailable;
+    private PEVSearchCriteria(boolean ageRestriction, boolean validDriversLicense, boolean helmetAvailable,
+                              DriversLicense driversLicense) {
+        int types = PEVType.OTHER.mask();
+        if (helmetAvailable) {
+            types |= PEVType.EBIKE.mask();
+        }
+        if (ageRestriction && helmetAvailable) {
+            types |= PEVType.EKICKSCOOTER.mask();
+        }
+        if (validDriversLicense) {
+            types |= PEVType.EMOPED.mask();
+        }
+        this.allowedTypes = types;
+        this.validUntilEpochSecond = validDriversLicense
+                ? driversLicense.getValidUntil().toEpochSecond(ZoneOffset.UTC)
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the mask of the allowed {@link PEVType}s; criteria with the
+     * same mask allow the same PEVs
+     */
+    int getAllowedTypes() {
+        return allowedTypes;
     }
 
     public boolean isPEVAllowed(PEV pev) {
-        if(pev instanceof EBike) {
-            return helmetAvailable;
-        } else if(pev instanceof EKickscooter) {
-            return ageRestriction && helmetAvailable;
-        } else if(pev instanceof EMoped) {
-            return validDriversLicense;
-        }
-        return true;
+        return (allowedTypes & pev.getType().mask()) != 0;
+    }
+
+    /**
+     * Removes all PEVs the rider is not allowed to rent, without allocating
+     * anything per PEV.
+     *
+     * @param pevs the candidates, which are filtered in place
+     */
+    public void retainAllowed(Collection<PEV> pevs) {
+        Iterator<PEV> iterator = pevs.iterator();
+        while (iterator.hasNext()) {
+            if (!isPEVAllowed(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only view of the PEVs the rider is allowed to rent,
+     * without copying anything. The view follows later changes of the
+     * candidates, and its size is counted on every call.
+     *
+     * @param pevs the candidates, which are left untouched
+     * @return the allowed candidates
+     */
+    public Set<PEV> allowedView(Set<PEV> pevs) {
+        return new AllowedPEVs(pevs, allowedTypes);
+    }
+
+    /**
+     * @return whether these criteria are outdated because the rider's
+     * drivers license has expired in the meantime
+     */
+    public boolean isExpired() {
+        return isExpired(TimeSource.system());
+    }
+
+    public boolean isExpired(TimeSource timeSource) {
+        return timeSource.localEpochSecond() >= validUntilEpochSecond;
+    }
+
+    /**
+     * The candidates whose type is in the mask, tested with a single bit
+     * test per PEV.
+     */
+    private static final class AllowedPEVs extends AbstractSet<PEV> {
+
+        private final Set<PEV> pevs;
+        private final int allowedTypes;
+
+        private AllowedPEVs(Set<PEV> pevs, int allowedTypes) {
+            this.pevs = pevs;
+            this.allowedTypes = allowedTypes;
+        }
+
+        private boolean isAllowed(PEV pev) {
+            return (allowedTypes & pev.getType().mask()) != 0;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof PEV pev && isAllowed(pev) && pevs.contains(pev);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !iterator().hasNext();
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (PEV pev : pevs) {
+                if (isAllowed(pev)) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public Iterator<PEV> iterator() {
+            Iterator<PEV> candidates = pevs.iterator();
+            return new Iterator<>() {
+
+                private PEV next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && candidates.hasNext()) {
+                        PEV candidate = candidates.next();
+                        if (isAllowed(candidate)) {
+                            next = candidate;
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public PEV next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    PEV pev = next;
+                    next = null;
+                    return pev;
+                }
+            };
+        }
     }
 }
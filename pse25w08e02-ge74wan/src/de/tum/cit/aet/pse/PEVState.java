@@ -0,0 +1,21 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The states of a {@link PEV} and the transitions allowed between them.
+ */
+public enum PEVState {
+    AVAILABLE, RESERVED, IN_RIDE, CHARGING;
+
+    /**
+     * @param next the state to change to
+     * @return whether a PEV in this state may change to the next state
+     */
+    public boolean canChangeTo(PEVState next) {
+        return switch (this) {
+            case AVAILABLE -> next != AVAILABLE;
+            case RESERVED -> next == AVAILABLE || next == IN_RIDE;
+            case IN_RIDE -> next == AVAILABLE || next == CHARGING;
+            case CHARGING -> next == AVAILABLE;
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The kind of a {@link PEV}, used to evaluate rental restrictions with a
+ * single bit test.
+ */
+public enum PEVType {
+    EBIKE, EKICKSCOOTER, EMOPED, OTHER;
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+}
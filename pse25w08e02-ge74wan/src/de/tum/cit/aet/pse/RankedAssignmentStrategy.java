@@ -0,0 +1,135 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns the best ranked candidate of a registered fleet.
+ * <p>
+ * PEVs are ranked by charge level (highest first), then by price per minute
+ * (cheapest first). The ranking is kept in a concurrent skip list that is
+ * updated in O(log n) whenever a registered PEV changes, so choosing neither
+ * sorts the candidates nor blocks. Choosing walks the ranking from the top
+ * and skips PEVs that are not candidates; once it has skipped as many PEVs
+ * as there are candidates, it ranks the candidates directly instead, so a
+ * choice never costs more than O(k) for k candidates. Among equally ranked
+ * candidates, the one whose rental would leave the least idle time between
+ * its neighbouring rentals is chosen, which keeps the bookings of the fleet
+ * packed.
+ */
+public class RankedAssignmentStrategy implements AssignmentStrategy, PEVListener {
+
+    private static final Comparator<Rank> BY_RANK = Comparator.comparingInt((Rank rank) -> -rank.chargeLevel)
+            .thenComparingInt(rank -> rank.pricePerMinute);
+
+    private final AtomicLong sequence;
+    private final NavigableSet<Rank> ranking;
+    // the up-to-date rank of each PEV; a replaced rank may still be seen in the ranking for a moment
+    private final Map<PEV, Rank> currentRanks;
+
+    public RankedAssignmentStrategy() {
+        this.sequence = new AtomicLong();
+        this.ranking = new ConcurrentSkipListSet<>(BY_RANK.thenComparingLong(rank -> rank.sequence));
+        this.currentRanks = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a PEV to the ranking and keeps its rank up to date.
+     *
+     * @param pev the PEV to rank
+     */
+    public void register(PEV pev) {
+        pev.addListener(this);
+        pevChanged(pev);
+    }
+
+    @Override
+    public PEV choose(Set<PEV> candidates, LocalDateTime from, LocalDateTime to) {
+        Rank best = null;
+        long bestIdleSeconds = Long.MAX_VALUE;
+        int visited = 0;
+        // counted once, the candidates may be a view that counts on every call
+        int candidateCount = candidates.size();
+        for (Rank rank : ranking) {
+            if (best != null && BY_RANK.compare(best, rank) != 0) {
+                break;
+            }
+            if (++visited > candidateCount) {
+                return chooseAmong(candidates, from, to);
+            }
+            if (currentRanks.get(rank.pev) != rank || !candidates.contains(rank.pev)) {
+                continue;
+            }
+            long idleSeconds = rank.pev.idleSecondsAround(from, to);
+            if (idleSeconds < bestIdleSeconds) {
+                best = rank;
+                bestIdleSeconds = idleSeconds;
+            }
+        }
+        // none of the candidates is registered
+        return best != null ? best.pev : chooseAmong(candidates, from, to);
+    }
+
+    /**
+     * Ranks the candidates by their current charge level and price in O(k).
+     */
+    private static PEV chooseAmong(Set<PEV> candidates, LocalDateTime from, LocalDateTime to) {
+        PEV best = null;
+        long bestIdleSeconds = Long.MAX_VALUE;
+        for (PEV pev : candidates) {
+            int order = best == null ? -1 : Integer.compare(best.getChargeLevel(), pev.getChargeLevel());
+            if (order == 0) {
+                order = Integer.compare(pev.getPricePerMinute(), best.getPricePerMinute());
+            }
+            if (order > 0) {
+                continue;
+            }
+            long idleSeconds = pev.idleSecondsAround(from, to);
+            if (order < 0 || idleSeconds < bestIdleSeconds) {
+                best = pev;
+                bestIdleSeconds = idleSeconds;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void rentalBooked(Rental rental) {
+        // bookings do not change the rank
+    }
+
+    @Override
+    public void pevChanged(PEV pev) {
+        // the new rank is added before the old one is removed, so the PEV is never missing from the ranking
+        currentRanks.compute(pev, (key, replaced) -> {
+            Rank rank = new Rank(pev, sequence.getAndIncrement());
+            ranking.add(rank);
+            if (replaced != null) {
+                ranking.remove(replaced);
+            }
+            return rank;
+        });
+    }
+
+    private static final class Rank {
+
+        private final PEV pev;
+        private final int chargeLevel;
+        private final int pricePerMinute;
+        // tells apart ranks that are equal otherwise
+        private final long sequence;
+
+        private Rank(PEV pev, long sequence) {
+            this.pev = pev;
+            this.chargeLevel = pev.getChargeLevel();
+            this.pricePerMinute = pev.getPricePerMinute();
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package de.tum.cit.aet.pse;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class Rental {
 
@@ -10,6 +10,13 @@ public class Rental {
     private final LocalDateTime to;
     private final PEV rentedPEV;
     private final Rider rider;
+    // the price when the rental was booked, later price changes do not apply to it
+    private final int pricePerMinute;
+    // local epoch seconds and nanos of the time frame, for comparisons without LocalDateTime
+    private final long fromSecond;
+    private final int fromNano;
+    private final long toSecond;
+    private final int toNano;
 
     public Rental(LocalDateTime from, LocalDateTime to, PEV rentedPEV, Rider rider) {
         if (from.isAfter(to)) {
@@ -20,25 +27,66 @@ public Rental(LocalDateTime from, LocalDateTime to, PEV rentedPEV, Rider rider)
         this.to = to;
         this.rentedPEV = rentedPEV;
         this.rider = rider;
+        this.pricePerMinute = rentedPEV == null ? 0 : rentedPEV.getPricePerMinute();
+        this.fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        this.fromNano = from.getNano();
+        this.toSecond = to.toEpochSecond(ZoneOffset.UTC);
+        this.toNano = to.getNano();
     }
 
+    /**
+     * @return the length of the rental in whole seconds
+     */
     public long timeElapsed() {
-        return Duration.between(from, to).toSeconds();
+        // same as Duration.between(from, to).toSeconds(), without the allocation
+        long seconds = toSecond - fromSecond;
+        return toNano < fromNano ? seconds - 1 : seconds;
+    }
+
+    /**
+     * @return whether this rental ends after the given time
+     */
+    boolean endsAfter(LocalDateTime time) {
+        long second = time.toEpochSecond(ZoneOffset.UTC);
+        return toSecond > second || toSecond == second && toNano > time.getNano();
     }
 
     public void start() {
+        start(TimeSource.system());
+    }
+
+    /**
+     * Starts the rental at the current time of the time source.
+     */
+    public void start(TimeSource timeSource) {
         // Only allow starting the rental within a one minute time frame around "from"
-        if (Math.abs(Duration.between(LocalDateTime.now(), from).toSeconds()) > SEC) {
+        if (Math.abs(timeSource.localEpochSecond() - fromSecond) > SEC) {
             throw new IllegalStateException("Rental cannot be started.");
         }
 
-        rentedPEV.lock();
-        rider.setPEV(rentedPEV);
+        // the state and the holder of the ride change together, only the start that wins updates the rider
+        RideControl rideControl = RideControl.of(rentedPEV);
+        if (!rideControl.startRide(this)) {
+            throw new IllegalStateException("Already locked");
+        }
+        if (rider != null) {
+            rider.setPEV(rentedPEV);
+        }
+        rideControl.notifyRentalStarted(this);
     }
 
+    /**
+     * Ends the ride, which is only possible for the rental that started it.
+     */
     public void stop() {
-        rentedPEV.unlock();
-        rider.setPEV(null);
+        RideControl rideControl = RideControl.of(rentedPEV);
+        if (!rideControl.stopRide(this)) {
+            throw new IllegalStateException("Rental does not hold the ride.");
+        }
+        if (rider != null) {
+            rider.setPEV(null);
+        }
+        rideControl.notifyRentalStopped(this);
     }
 
     public LocalDateTime getFrom() {
@@ -52,4 +100,15 @@ public LocalDateTime getTo() {
     public PEV getRentedPEV() {
         return rentedPEV;
     }
+
+    public Rider getRider() {
+        return rider;
+    }
+
+    /**
+     * @return the price per minute of the PEV at the time the rental was booked
+     */
+    public int getPricePerMinute() {
+        return pricePerMinute;
+    }
 }
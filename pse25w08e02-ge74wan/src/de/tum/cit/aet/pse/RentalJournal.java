@@ -0,0 +1,643 @@
+package de.tum.cit.aet.pse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, append-only log of the bookings, starts and stops of rentals.
+ * <p>
+ * The journal listens to the PEVs attached to it and appends a compact
+ * binary record for every event to a memory-mapped segment file. Records are
+ * not forced to disk one by one: a background thread forces the current
+ * segment in a fixed interval, so the cost of a sync is shared by all
+ * records of that interval. A crash loses at most the records of the last
+ * interval, {@link #flush()} forces them immediately. A full segment is
+ * replaced by one the background thread opened ahead and is forced and
+ * closed by that thread, so a PEV never waits for the disk while it notifies
+ * the journal.
+ * <p>
+ * {@link #restore} replays the latest snapshot and the segments written
+ * after it into a fresh fleet. {@link #snapshot} writes the state of the
+ * fleet and deletes the segments it replaces, so a restart does not have to
+ * replay the whole history. Times are stored with second precision.
+ * <p>
+ * The journal never throws from its listener methods, as the PEV has already
+ * committed the event when it notifies the journal. A record that cannot be
+ * written is reported and lost. {@link #close()} detaches the journal from
+ * all PEVs, so later events are not recorded.
+ */
+public class RentalJournal implements PEVListener, Closeable {
+
+    /**
+     * The events recorded by the journal.
+     */
+    public enum RecordType {
+        BOOKED, STARTED, STOPPED
+    }
+
+    /**
+     * Receives the records of a journal in the order they were written.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * @param type         the recorded event
+         * @param licensePlate the license plate of the rented PEV
+         * @param riderName    the name of the rider, or {@code null} if the rental has no rider
+         * @param from         the start of the rental in epoch seconds
+         * @param to           the end of the rental in epoch seconds
+         */
+        void handle(RecordType type, String licensePlate, String riderName, long from, long to);
+    }
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(10);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".log";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    // length and checksum of the payload
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int NO_RIDER = -1;
+    private static final RecordType[] TYPES = RecordType.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    // the STARTED record of every rental that was not stopped yet, by license plate
+    private final Map<String, ByteBuffer> activeRentals;
+    // full segments whose records were not forced yet, oldest first
+    private final List<Segment> retired;
+    private final List<PEV> attached;
+    private ScheduledExecutorService committer;
+    private long nextNumber;
+    private Segment segment;
+    // opened ahead by the committer, replaces the current segment when it is full
+    private Segment spare;
+    private long appendedRecords;
+    private long forcedRecords;
+    private boolean closed;
+
+    private RentalJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.activeRentals = new HashMap<>();
+        this.retired = new ArrayList<>();
+        this.attached = new ArrayList<>();
+        long lastNumber = 0;
+        for (Path file : files(SEGMENT_PREFIX)) {
+            lastNumber = Math.max(lastNumber, number(file));
+        }
+        for (Path file : files(SNAPSHOT_PREFIX)) {
+            lastNumber = Math.max(lastNumber, number(file));
+        }
+        this.nextNumber = lastNumber + 1;
+        this.segment = openSegment(nextNumber++);
+    }
+
+    public static RentalJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens the journal in a directory and starts its background thread.
+     * New records always go to a new segment behind the existing ones.
+     *
+     * @param directory      the directory of the segment and snapshot files
+     * @param segmentSize    the size of a segment file in bytes
+     * @param commitInterval how often written records are forced to disk
+     */
+    public static RentalJournal open(Path directory, int segmentSize, Duration commitInterval) throws IOException {
+        RentalJournal journal = new RentalJournal(directory, segmentSize);
+        // started only now, so the thread never sees a journal that is still being constructed
+        journal.committer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "rental-journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = commitInterval.toNanos();
+        journal.committer.scheduleWithFixedDelay(journal::commit, 0, interval, TimeUnit.NANOSECONDS);
+        return journal;
+    }
+
+    /**
+     * Records all future bookings, starts and stops of a PEV.
+     */
+    public void attach(PEV pev) {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            attached.add(pev);
+        }
+        pev.addListener(this);
+    }
+
+    @Override
+    public void rentalBooked(Rental rental) {
+        ByteBuffer record = encodeOrReport(RecordType.BOOKED, rental);
+        if (record != null) {
+            append(record);
+        }
+    }
+
+    @Override
+    public void rentalStarted(Rental rental) {
+        ByteBuffer record = encodeOrReport(RecordType.STARTED, rental);
+        if (record != null) {
+            synchronized (this) {
+                activeRentals.put(rental.getRentedPEV().getLicensePlate(), record);
+                append(record);
+            }
+        }
+    }
+
+    @Override
+    public void rentalStopped(Rental rental) {
+        ByteBuffer record = encodeOrReport(RecordType.STOPPED, rental);
+        if (record != null) {
+            synchronized (this) {
+                activeRentals.remove(rental.getRentedPEV().getLicensePlate());
+                append(record);
+            }
+        }
+    }
+
+    /**
+     * Forces all written records to disk and closes the full segments.
+     */
+    public void flush() {
+        List<Segment> full;
+        Segment written;
+        long appended;
+        synchronized (this) {
+            if (closed || appendedRecords == forcedRecords && retired.isEmpty()) {
+                return;
+            }
+            full = new ArrayList<>(retired);
+            written = segment;
+            appended = appendedRecords;
+        }
+        // appends can continue while the records written so far are synced
+        try {
+            for (Segment fullSegment : full) {
+                fullSegment.force();
+                fullSegment.close();
+                synchronized (this) {
+                    retired.remove(fullSegment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        written.force();
+        // only now, so records of a failed force are forced again by the next flush
+        synchronized (this) {
+            forcedRecords = Math.max(forcedRecords, appended);
+        }
+    }
+
+    /**
+     * Reads the latest snapshot and all segments written after it.
+     *
+     * @param handler receives every record
+     * @return the number of records read
+     */
+    public long replay(RecordHandler handler) throws IOException {
+        long snapshotNumber = 0;
+        Path snapshot = null;
+        for (Path file : files(SNAPSHOT_PREFIX)) {
+            if (number(file) > snapshotNumber) {
+                snapshotNumber = number(file);
+                snapshot = file;
+            }
+        }
+        long records = 0;
+        if (snapshot != null) {
+            records += read(snapshot, handler);
+        }
+        List<Path> segments = files(SEGMENT_PREFIX);
+        segments.sort((first, second) -> Long.compare(number(first), number(second)));
+        for (Path file : segments) {
+            if (number(file) >= snapshotNumber) {
+                records += read(file, handler);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Rebuilds the rentals and lock states of a fleet from the journal and
+     * attaches the journal to all PEVs of the fleet afterwards. Records of
+     * unknown PEVs are skipped, bookings that are already known are not
+     * booked again.
+     *
+     * @param fleet  the PEVs to restore, without rentals
+     * @param riders looks up the rider with a name, may return {@code null}
+     * @return the number of records read
+     */
+    public long restore(Collection<PEV> fleet, Function<String, Rider> riders) throws IOException {
+        Map<String, PEV> pevs = new HashMap<>();
+        for (PEV pev : fleet) {
+            pevs.put(pev.getLicensePlate(), pev);
+        }
+        Map<String, Rider> knownRiders = new HashMap<>();
+        long records = replay((type, licensePlate, riderName, from, to) -> {
+            PEV pev = pevs.get(licensePlate);
+            if (pev == null) {
+                return;
+            }
+            Rider rider = riderName == null ? null : knownRiders.computeIfAbsent(riderName, riders);
+            LocalDateTime start = toLocalDateTime(from);
+            LocalDateTime end = toLocalDateTime(to);
+            switch (type) {
+                case BOOKED -> {
+                    if (!isBooked(pev, start, end)) {
+                        if (rider == null) {
+                            pev.rent(start, end, null);
+                        } else {
+                            rider.rent(pev, start, end);
+                        }
+                    }
+                }
+                case STARTED -> {
+                    // the restored rental holds the ride again, so it can stop it
+                    Rental rental = findRental(rider == null ? pev.getRentals() : rider.getRentals(), pev, start, end);
+                    if (rental == null || !(pev instanceof RideControl rides && rides.startRide(rental))) {
+                        pev.compareAndSetState(PEVState.AVAILABLE, PEVState.IN_RIDE);
+                    }
+                    if (rider != null) {
+                        rider.setPEV(pev);
+                    }
+                    synchronized (this) {
+                        activeRentals.put(licensePlate, encode(type, licensePlate, riderName, from, to));
+                    }
+                }
+                case STOPPED -> {
+                    Rental ride = pev.getActiveRental();
+                    if (ride == null || !(pev instanceof RideControl rides && rides.stopRide(ride))) {
+                        pev.compareAndSetState(PEVState.IN_RIDE, PEVState.AVAILABLE);
+                    }
+                    if (rider != null) {
+                        rider.setPEV(null);
+                    }
+                    synchronized (this) {
+                        activeRentals.remove(licensePlate);
+                    }
+                }
+            }
+        });
+        for (PEV pev : fleet) {
+            attach(pev);
+        }
+        return records;
+    }
+
+    /**
+     * Writes the rentals of the fleet and the started rentals into a
+     * snapshot and deletes the segments and snapshots it replaces. Records
+     * appended while the snapshot is written go to a new segment.
+     *
+     * @param fleet all PEVs attached to this journal
+     */
+    public void snapshot(Collection<PEV> fleet) throws IOException {
+        long number;
+        List<ByteBuffer> started;
+        synchronized (this) {
+            roll();
+            number = segment.number;
+            started = new ArrayList<>(activeRentals.values());
+        }
+
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + format(number) + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (PEV pev : fleet) {
+                for (Rental rental : pev.getRentals()) {
+                    write(channel, encode(RecordType.BOOKED, rental));
+                }
+            }
+            for (ByteBuffer record : started) {
+                write(channel, record);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_PREFIX + format(number) + SUFFIX),
+                StandardCopyOption.ATOMIC_MOVE);
+
+        // the replaced segments are closed before they are deleted
+        flush();
+        for (Path file : files(SEGMENT_PREFIX)) {
+            if (number(file) < number) {
+                Files.delete(file);
+            }
+        }
+        for (Path file : files(SNAPSHOT_PREFIX)) {
+            if (number(file) < number) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Detaches the journal from all PEVs, waits for the background thread to
+     * stop, then forces and closes all segments.
+     */
+    @Override
+    public void close() throws IOException {
+        committer.shutdown();
+        try {
+            committer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while the journal was committed");
+        }
+        List<Segment> full;
+        Segment last;
+        Segment unused;
+        List<PEV> detached;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            detached = new ArrayList<>(attached);
+            attached.clear();
+            full = new ArrayList<>(retired);
+            retired.clear();
+            last = segment;
+            unused = spare;
+            spare = null;
+        }
+        for (PEV pev : detached) {
+            pev.removeListener(this);
+        }
+        for (Segment fullSegment : full) {
+            fullSegment.force();
+            fullSegment.close();
+        }
+        last.force();
+        last.close();
+        if (unused != null) {
+            unused.delete();
+        }
+    }
+
+    private void commit() {
+        try {
+            flush();
+            prepareSpare();
+        } catch (IOException e) {
+            System.err.println("Rental journal could not open a segment: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.err.println("Rental journal could not be synced: " + e.getMessage());
+        }
+    }
+
+    // runs on the committer only, so at most one spare segment is opened at a time
+    private void prepareSpare() throws IOException {
+        long number;
+        synchronized (this) {
+            if (closed || spare != null) {
+                return;
+            }
+            number = nextNumber++;
+        }
+        Segment prepared = openSegment(number);
+        synchronized (this) {
+            // an append that did not find a spare opened a newer segment, records must not go back to this one
+            if (!closed && number > segment.number) {
+                spare = prepared;
+                return;
+            }
+        }
+        prepared.delete();
+    }
+
+    // called by the listener methods, which must not throw, so a record that cannot be written is only reported
+    private synchronized void append(ByteBuffer record) {
+        if (closed) {
+            // an event that raced with close() and is not part of the journal any more
+            return;
+        }
+        if (record.remaining() > segmentSize) {
+            System.err.println("Rental journal lost a record that is larger than a segment");
+            return;
+        }
+        if (record.remaining() > segment.buffer.remaining()) {
+            try {
+                roll();
+            } catch (IOException e) {
+                System.err.println("Rental journal lost a record, no segment could be opened: " + e.getMessage());
+                return;
+            }
+        }
+        // the checksum lets the reader detect a record that was only partly written
+        segment.buffer.put(record.duplicate());
+        appendedRecords++;
+    }
+
+    // the full segment is left to the committer, only a missing spare is opened here
+    private void roll() throws IOException {
+        Segment next = spare != null ? spare : openSegment(nextNumber++);
+        spare = null;
+        retired.add(segment);
+        segment = next;
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Path file = directory.resolve(SEGMENT_PREFIX + format(number) + SUFFIX);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return new Segment(number, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(SUFFIX);
+            }).toList());
+        }
+    }
+
+    private static long read(Path file, RecordHandler handler) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                // the unused rest of a segment is zero, a torn record fails the checksum
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                RecordType type = TYPES[payload.get()];
+                long from = payload.getLong();
+                long to = payload.getLong();
+                String licensePlate = readString(payload);
+                String riderName = readString(payload);
+                handler.handle(type, licensePlate, riderName, from, to);
+                buffer.position(buffer.position() + length);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static ByteBuffer encodeOrReport(RecordType type, Rental rental) {
+        try {
+            return encode(type, rental);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Rental journal lost a record: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ByteBuffer encode(RecordType type, Rental rental) {
+        Rider rider = rental.getRider();
+        return encode(type, rental.getRentedPEV().getLicensePlate(), rider == null ? null : rider.getName(),
+                toEpochSecond(rental.getFrom()), toEpochSecond(rental.getTo()));
+    }
+
+    private static ByteBuffer encode(RecordType type, String licensePlate, String riderName, long from, long to) {
+        byte[] plate = licensePlate.getBytes(StandardCharsets.UTF_8);
+        byte[] rider = riderName == null ? null : riderName.getBytes(StandardCharsets.UTF_8);
+        if (plate.length > Short.MAX_VALUE || rider != null && rider.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("License plate or rider name is too long");
+        }
+        int length = Byte.BYTES + 2 * Long.BYTES + 2 * Short.BYTES + plate.length + (rider == null ? 0 : rider.length);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.position(HEADER_BYTES);
+        record.put((byte) type.ordinal()).putLong(from).putLong(to);
+        record.putShort((short) plate.length).put(plate);
+        if (rider == null) {
+            record.putShort((short) NO_RIDER);
+        } else {
+            record.putShort((short) rider.length).put(rider);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, length);
+        record.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+        return record.flip();
+    }
+
+    private static String readString(ByteBuffer payload) {
+        short length = payload.getShort();
+        if (length == NO_RIDER) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer record) throws IOException {
+        ByteBuffer remaining = record.duplicate();
+        while (remaining.hasRemaining()) {
+            channel.write(remaining);
+        }
+    }
+
+    // a snapshot and the segment after it can both contain a booking made while the snapshot was written
+    private static boolean isBooked(PEV pev, LocalDateTime from, LocalDateTime to) {
+        if (!from.equals(to)) {
+            return pev.isBooked(from, to);
+        }
+        for (Rental rental : pev.getRentals()) {
+            if (rental.getFrom().equals(from) && rental.getTo().equals(to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Rental findRental(List<Rental> rentals, PEV pev, LocalDateTime from, LocalDateTime to) {
+        for (Rental rental : rentals) {
+            if (rental.getRentedPEV().equals(pev) && rental.getFrom().equals(from) && rental.getTo().equals(to)) {
+                return rental;
+            }
+        }
+        return null;
+    }
+
+    private static long number(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - SUFFIX.length()));
+    }
+
+    private static String format(long number) {
+        return String.format("%020d", number);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A segment file and its mapping.
+     */
+    private static final class Segment {
+
+        private final long number;
+        private final Path file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long number, Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // the mapping stays valid after the channel is closed
+        private void force() {
+            buffer.force();
+        }
+
+        private void close() throws IOException {
+            channel.close();
+        }
+
+        private void delete() throws IOException {
+            channel.close();
+            Files.delete(file);
+        }
+    }
+}
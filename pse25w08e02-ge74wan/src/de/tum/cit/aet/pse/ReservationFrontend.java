@@ -0,0 +1,133 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts reservations of many riders at the same time.
+ * <p>
+ * The front end holds no rider: every call carries its own, and the work is
+ * done by a {@link ReservationManager} that only uses request-scoped methods.
+ * Calls run on an executor. Optionally, a semaphore limits how many calls
+ * work against the {@link ReservationService} at once, for services that
+ * only take a limited number of concurrent queries. A call that is not
+ * admitted within the admission timeout fails instead of queueing up, and so
+ * does a call the executor rejects. The latency of every call is recorded
+ * from its submission, so it includes the wait for a thread and for
+ * admission, and also covers the calls that failed as busy.
+ */
+public class ReservationFrontend implements AutoCloseable {
+
+    static final String BUSY = "The reservation service is busy, please try again";
+    private static final Duration DEFAULT_ADMISSION_TIMEOUT = Duration.ofSeconds(1);
+    private static final int DEFAULT_QUEUED_CALLS_PER_THREAD = 64;
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    private final ReservationManager reservationManager;
+    private final ExecutorService executor;
+    // null if the calls are only limited by the executor
+    private final Semaphore admission;
+    private final long admissionTimeoutNanos;
+    private final LatencyHistogram latencies;
+
+    /**
+     * Runs the calls on one thread per processor without an admission limit,
+     * as the threads already bound the concurrent calls. A bounded number of
+     * calls waits for a thread, further calls fail as busy right away.
+     */
+    public ReservationFrontend(ReservationService reservationService) {
+        this(reservationService, new FirstFoundAssignmentStrategy(),
+                boundedExecutor(Runtime.getRuntime().availableProcessors()), null, DEFAULT_ADMISSION_TIMEOUT);
+    }
+
+    /**
+     * @param reservationService the service that finds available PEVs
+     * @param assignmentStrategy decides which PEV a rider gets
+     * @param executor           runs the calls; it is shut down on {@link #close()}
+     * @param maxConcurrentCalls how many calls may work against the service at once
+     * @param admissionTimeout   how long a call may wait to be admitted
+     */
+    public ReservationFrontend(ReservationService reservationService, AssignmentStrategy assignmentStrategy,
+                               ExecutorService executor, int maxConcurrentCalls, Duration admissionTimeout) {
+        this(reservationService, assignmentStrategy, executor, new Semaphore(maxConcurrentCalls), admissionTimeout);
+    }
+
+    private ReservationFrontend(ReservationService reservationService, AssignmentStrategy assignmentStrategy,
+                                ExecutorService executor, Semaphore admission, Duration admissionTimeout) {
+        this.reservationManager = new ReservationManager(null, reservationService);
+        this.reservationManager.setAssignmentStrategy(assignmentStrategy);
+        this.executor = executor;
+        this.admission = admission;
+        this.admissionTimeoutNanos = admissionTimeout.toNanos();
+        this.latencies = new LatencyHistogram();
+    }
+
+    /**
+     * Reserves a fitting PEV for the rider in the background.
+     *
+     * @return the result, which tells why no PEV was reserved if the call failed
+     */
+    public CompletableFuture<ReservationResult> reserve(Rider rider, LocalDateTime from, LocalDateTime to) {
+        ReservationRequest request = new ReservationRequest(rider, from, to);
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> reserve(request, submitted), executor);
+        } catch (RejectedExecutionException e) {
+            latencies.record(System.nanoTime() - submitted);
+            return CompletableFuture.completedFuture(ReservationResult.failed(request, BUSY));
+        }
+    }
+
+    /**
+     * Reserves a fitting PEV in the calling thread.
+     */
+    public ReservationResult reserve(ReservationRequest request) {
+        return reserve(request, System.nanoTime());
+    }
+
+    private ReservationResult reserve(ReservationRequest request, long submitted) {
+        try {
+            if (admission == null) {
+                return reservationManager.reserve(request);
+            }
+            if (!admission.tryAcquire(admissionTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return ReservationResult.failed(request, BUSY);
+            }
+            try {
+                return reservationManager.reserve(request);
+            } finally {
+                admission.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ReservationResult.failed(request, BUSY);
+        } finally {
+            latencies.record(System.nanoTime() - submitted);
+        }
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // the threads end when they are idle, like the ones of a cached thread pool
+    private static ExecutorService boundedExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * DEFAULT_QUEUED_CALLS_PER_THREAD),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
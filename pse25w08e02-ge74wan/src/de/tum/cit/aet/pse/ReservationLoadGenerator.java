@@ -0,0 +1,82 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends random reservations to a {@link ReservationFrontend} with a growing
+ * number of concurrent callers and prints the throughput and latencies, to
+ * show how the front end scales with the number of processors. The callers
+ * use the asynchronous API, so the latencies include the wait for a thread
+ * of the front end, and calls it rejects are counted as busy.
+ */
+public final class ReservationLoadGenerator {
+
+    private static final int VEHICLES = 1_000;
+    private static final int RESERVATIONS_PER_CALLER = 2_000;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 10, 10, 10, 0);
+
+    private ReservationLoadGenerator() {
+    }
+
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int callers = 1; callers <= 4 * processors; callers *= 2) {
+            run(callers);
+        }
+    }
+
+    private static void run(int callers) {
+        InMemoryReservationService service = new InMemoryReservationService();
+        for (int i = 0; i < VEHICLES; i++) {
+            service.addPEV(i % 2 == 0 ? new EBike(80, "M-" + i) : new EKickscooter(80, "M-" + i));
+        }
+        ExecutorService callerThreads = Executors.newFixedThreadPool(callers);
+        try (ReservationFrontend frontend = new ReservationFrontend(service)) {
+            List<CompletableFuture<long[]>> calls = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int i = 0; i < callers; i++) {
+                calls.add(CompletableFuture.supplyAsync(() -> reserveMany(frontend), callerThreads));
+            }
+            long reserved = 0;
+            long busy = 0;
+            for (CompletableFuture<long[]> call : calls) {
+                long[] counts = call.join();
+                reserved += counts[0];
+                busy += counts[1];
+            }
+            long duration = System.nanoTime() - begin;
+
+            LatencyHistogram latencies = frontend.getLatencies();
+            System.out.printf("%2d callers: %,d reservations/s, %,d reserved, %,d busy, p50 %,d us, p99 %,d us%n",
+                    callers, latencies.getCount() * TimeUnit.SECONDS.toNanos(1) / duration, reserved, busy,
+                    TimeUnit.NANOSECONDS.toMicros(latencies.getP50()),
+                    TimeUnit.NANOSECONDS.toMicros(latencies.getP99()));
+        } finally {
+            callerThreads.shutdown();
+        }
+    }
+
+    // returns the number of reserved and of busy calls
+    private static long[] reserveMany(ReservationFrontend frontend) {
+        Rider rider = new Rider(Thread.currentThread().getName(), 27, true, null);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] counts = new long[2];
+        for (int i = 0; i < RESERVATIONS_PER_CALLER; i++) {
+            LocalDateTime from = START.plusMinutes(random.nextInt(7 * 24 * 60));
+            ReservationResult result = frontend.reserve(rider, from, from.plusMinutes(5 + random.nextInt(60))).join();
+            if (result.isReserved()) {
+                counts[0]++;
+            } else if (ReservationFrontend.BUSY.equals(result.getFailure())) {
+                counts[1]++;
+            }
+        }
+        return counts;
+    }
+}
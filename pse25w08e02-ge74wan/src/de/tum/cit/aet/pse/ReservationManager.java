@@ -1,17 +1,21 @@
 package de.tum.cit.aet.pse;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class ReservationManager {
 
     private Rider reserver;
     private ReservationService reservationService;
+    private AssignmentStrategy assignmentStrategy;
 
     public ReservationManager(Rider reserver, ReservationService reservationService) {
         this.reserver = reserver;
         this.reservationService = reservationService;
+        this.assignmentStrategy = new FirstFoundAssignmentStrategy();
     }
 
     /**
@@ -27,7 +31,7 @@ public PEV reserveFittingPEV(LocalDateTime from, LocalDateTime to) {
         if (foundPEVs.isEmpty()) {
             throw new NoPEVAvailableException();
         }
-        PEV fittingPEV = foundPEVs.iterator().next();
+        PEV fittingPEV = assignmentStrategy.choose(foundPEVs, from, to);
         reserver.rent(fittingPEV, from, to);
         return fittingPEV;
     }
@@ -41,9 +45,92 @@ public PEV reserveFittingPEV(LocalDateTime from, LocalDateTime to) {
      * @return set of PEVs that are available for rent for the rider (reserver)
      */
     public Set<PEV> lookupAvailablePEVsForTimeFrame(LocalDateTime from, LocalDateTime to) {
-        PEVSearchCriteria pevSearchCriteria = new PEVSearchCriteria(this.reserver);
+        PEVSearchCriteria pevSearchCriteria = this.reserver.getSearchCriteria();
+        // the service hands out a new set, so it is filtered in place
         Set<PEV> availablePEVs = this.reservationService.findAvailablePEVs(from, to);
-        return availablePEVs.stream().filter(pevSearchCriteria::isPEVAllowed).collect(Collectors.toSet());
+        pevSearchCriteria.retainAllowed(availablePEVs);
+        return availablePEVs;
+    }
+
+    /**
+     * Reserves a fitting PEV for each of the given requests.
+     * <p>
+     * Requests with overlapping time frames are grouped, and each group asks
+     * the reservation service only once for the PEVs that are free during the
+     * whole group. These PEVs are handed out at most once per group, so the
+     * requests of a group never conflict with each other. Requests that cannot
+     * be served from their group's PEVs fall back to a lookup of their own.
+     * Each request sees the PEVs of its group through a view of the types its
+     * rider may use, so the PEVs are never copied per request.
+     *
+     * @param requests the reservations to place, each with its own rider
+     * @return one result per request, in the order of the requests
+     */
+    public List<ReservationResult> reserveFittingPEVs(List<ReservationRequest> requests) {
+        List<Integer> order = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(index -> requests.get(index).getFrom()));
+
+        ReservationResult[] results = new ReservationResult[requests.size()];
+        int groupStart = 0;
+        while (groupStart < order.size()) {
+            ReservationRequest first = requests.get(order.get(groupStart));
+            LocalDateTime groupFrom = first.getFrom();
+            LocalDateTime groupTo = first.getTo();
+            int groupEnd = groupStart + 1;
+            while (groupEnd < order.size() && requests.get(order.get(groupEnd)).getFrom().isBefore(groupTo)) {
+                LocalDateTime to = requests.get(order.get(groupEnd)).getTo();
+                if (to.isAfter(groupTo)) {
+                    groupTo = to;
+                }
+                groupEnd++;
+            }
+
+            Set<PEV> groupPEVs = this.reservationService.findAvailablePEVs(groupFrom, groupTo);
+            for (int i = groupStart; i < groupEnd; i++) {
+                int index = order.get(i);
+                results[index] = reserveFrom(groupPEVs, requests.get(index));
+                if (!results[index].isReserved()) {
+                    ReservationRequest request = requests.get(index);
+                    Set<PEV> ownPEVs = this.reservationService.findAvailablePEVs(request.getFrom(), request.getTo());
+                    results[index] = reserveFrom(ownPEVs, request);
+                }
+            }
+            groupStart = groupEnd;
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Reserves a fitting PEV for a single request. Only the rider of the
+     * request is used, so one manager can serve the requests of many riders
+     * at the same time.
+     *
+     * @param request the reservation to place
+     * @return the reserved PEV, or why no PEV could be reserved
+     */
+    public ReservationResult reserve(ReservationRequest request) {
+        Set<PEV> candidates = this.reservationService.findAvailablePEVs(request.getFrom(), request.getTo());
+        return reserveFrom(candidates, request);
+    }
+
+    /**
+     * Rents the PEV the assignment strategy chooses among the candidates the
+     * rider may use, and removes every PEV it tried from the candidates.
+     */
+    private ReservationResult reserveFrom(Set<PEV> candidates, ReservationRequest request) {
+        Rider rider = request.getRider();
+        Set<PEV> allowedPEVs = rider.getSearchCriteria().allowedView(candidates);
+        while (!allowedPEVs.isEmpty()) {
+            PEV pev = assignmentStrategy.choose(allowedPEVs, request.getFrom(), request.getTo());
+            candidates.remove(pev);
+            if (rider.tryRent(pev, request.getFrom(), request.getTo()) != null) {
+                return ReservationResult.reserved(request, pev);
+            }
+        }
+        return ReservationResult.failed(request, NoPEVAvailableException.MESSAGE);
     }
 
     public void setRider(Rider pReserver) {
@@ -53,4 +140,8 @@ public void setRider(Rider pReserver) {
     public void setReservationService(ReservationService reservationService) {
         this.reservationService = reservationService;
     }
+
+    public void setAssignmentStrategy(AssignmentStrategy assignmentStrategy) {
+        this.assignmentStrategy = assignmentStrategy;
+    }
 }
@@ -0,0 +1,31 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+
+/**
+ * A request of a rider to reserve any fitting PEV for a time frame.
+ */
+public final class ReservationRequest {
+
+    private final Rider rider;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    public ReservationRequest(Rider rider, LocalDateTime from, LocalDateTime to) {
+        this.rider = rider;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Rider getRider() {
+        return rider;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+}
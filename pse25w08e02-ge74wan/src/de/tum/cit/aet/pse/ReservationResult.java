@@ -0,0 +1,48 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The outcome of a single {@link ReservationRequest}: either the reserved PEV
+ * or the reason why no PEV could be reserved.
+ */
+public final class ReservationResult {
+
+    private final ReservationRequest request;
+    private final PEV pev;
+    private final String failure;
+
+    private ReservationResult(ReservationRequest request, PEV pev, String failure) {
+        this.request = request;
+        this.pev = pev;
+        this.failure = failure;
+    }
+
+    public static ReservationResult reserved(ReservationRequest request, PEV pev) {
+        return new ReservationResult(request, pev, null);
+    }
+
+    public static ReservationResult failed(ReservationRequest request, String failure) {
+        return new ReservationResult(request, null, failure);
+    }
+
+    public ReservationRequest getRequest() {
+        return request;
+    }
+
+    public boolean isReserved() {
+        return pev != null;
+    }
+
+    /**
+     * @return the reserved PEV, or {@code null} if the reservation failed
+     */
+    public PEV getPEV() {
+        return pev;
+    }
+
+    /**
+     * @return why the reservation failed, or {@code null} if it succeeded
+     */
+    public String getFailure() {
+        return failure;
+    }
+}
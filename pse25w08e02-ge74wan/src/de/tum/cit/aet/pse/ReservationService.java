@@ -5,5 +5,12 @@
 
 public interface ReservationService {
 
+    /**
+     * Finds all PEVs that are not booked in the specified time frame.
+     *
+     * @param from  Start of the time frame
+     * @param to    End of the time frame
+     * @return a new, modifiable set owned by the caller
+     */
     Set<PEV> findAvailablePEVs(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,46 @@
+package de.tum.cit.aet.pse;
+
+/**
+ * The ride hooks of the PEVs of this package, which only {@link Rental} and
+ * {@link RentalJournal} call. They are not part of {@link PEV}, so a ride can
+ * only be started and ended through the rental that holds it.
+ */
+interface RideControl {
+
+    /**
+     * Returns the ride hooks of a PEV.
+     *
+     * @throws IllegalArgumentException if the PEV was not implemented in this package
+     */
+    static RideControl of(PEV pev) {
+        if (!(pev instanceof RideControl rideControl)) {
+            throw new IllegalArgumentException("Rides of " + pev.getLicensePlate() + " cannot be controlled");
+        }
+        return rideControl;
+    }
+
+    /**
+     * Atomically changes the state from available to in ride and makes the
+     * given rental the holder of the ride.
+     *
+     * @return whether the ride was started
+     */
+    boolean startRide(Rental rental);
+
+    /**
+     * Atomically ends the ride if it is held by the given rental.
+     *
+     * @return whether the ride was ended
+     */
+    boolean stopRide(Rental rental);
+
+    /**
+     * Tells the listeners that a rental of this PEV was started.
+     */
+    void notifyRentalStarted(Rental rental);
+
+    /**
+     * Tells the listeners that a rental of this PEV was stopped.
+     */
+    void notifyRentalStopped(Rental rental);
+}
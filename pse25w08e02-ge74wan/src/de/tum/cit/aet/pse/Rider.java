@@ -2,7 +2,6 @@
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class Rider {
@@ -13,10 +12,12 @@ public class Rider {
     private boolean hasHelmet;
     private DriversLicense driversLicense;
 
-    private PEV pev;
+    private volatile PEV pev;
     private final List<Rental> rentals;
 
     private ReservationManager reservationManager;
+    private volatile PEVSearchCriteria searchCriteria;
+    private volatile TimeSource timeSource;
 
     public Rider(String name, int age, boolean hasHelmet, DriversLicense driversLicense) {
         this.name = name;
@@ -24,6 +25,7 @@ public Rider(String name, int age, boolean hasHelmet, DriversLicense driversLice
         this.hasHelmet = hasHelmet;
         this.driversLicense = driversLicense;
         this.rentals = new ArrayList<>();
+        this.timeSource = TimeSource.system();
     }
 
     public String getName() {
@@ -36,6 +38,7 @@ public int getAge() {
 
     public void setAge(int age) {
         this.age = age;
+        this.searchCriteria = null;
     }
 
     public boolean hasHelmet() {
@@ -44,6 +47,7 @@ public boolean hasHelmet() {
 
     public void setHasHelmet(boolean hasHelmet) {
         this.hasHelmet = hasHelmet;
+        this.searchCriteria = null;
     }
 
     public PEV getPEV() {
@@ -59,7 +63,9 @@ public DriversLicense getDriversLicense() {
     }
 
     public List<Rental> getRentals() {
-        return Collections.unmodifiableList(rentals);
+        synchronized (rentals) {
+            return List.copyOf(rentals);
+        }
     }
 
     public ReservationManager getReservationManager() {
@@ -70,16 +76,64 @@ public void setReservationManager(ReservationManager manager) {
         this.reservationManager = manager;
     }
 
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    /**
+     * Sets the clock that decides whether the drivers license of this rider
+     * is still valid.
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        this.timeSource = timeSource;
+        this.searchCriteria = null;
+    }
+
     public void receiveDriversLicense() {
-        this.driversLicense = new DriversLicense(LocalDateTime.now().plusYears(LICENSE_DURATION), name);
+        this.driversLicense = new DriversLicense(timeSource.now().plusYears(LICENSE_DURATION), name);
+        this.searchCriteria = null;
     }
 
-    public void rent(PEV pPev, LocalDateTime from, LocalDateTime to) {
+    /**
+     * Returns the search criteria of this rider. They are only rebuilt after
+     * the age, helmet or drivers license of the rider changed.
+     *
+     * @return the search criteria matching the current state of the rider
+     */
+    public PEVSearchCriteria getSearchCriteria() {
+        PEVSearchCriteria criteria = searchCriteria;
+        if (criteria == null || criteria.isExpired(timeSource)) {
+            criteria = new PEVSearchCriteria(this);
+            searchCriteria = criteria;
+        }
+        return criteria;
+    }
+
+    /**
+     * Books the PEV for the given time frame.
+     *
+     * @return the new rental, or {@code null} if the PEV is already booked
+     */
+    public Rental rent(PEV pPev, LocalDateTime from, LocalDateTime to) {
+        Rental rental = tryRent(pPev, from, to);
+        if (rental == null) {
+            System.out.println("Couldn't book the pev since it is already booked");
+        }
+        return rental;
+    }
+
+    /**
+     * Same as {@link #rent}, for callers that handle a conflict themselves.
+     */
+    Rental tryRent(PEV pPev, LocalDateTime from, LocalDateTime to) {
         try {
             Rental rental = pPev.rent(from, to, this);
-            this.rentals.add(rental);
+            synchronized (rentals) {
+                this.rentals.add(rental);
+            }
+            return rental;
         } catch (IllegalArgumentException ignored) {
-            System.out.println("Couldn't book the pev since it is already booked");
+            return null;
         }
     }
 }
@@ -0,0 +1,37 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A time source that only moves when it is told to, so tests and
+ * simulations are deterministic and can replay a day of traffic faster than
+ * real time.
+ */
+public class SimulatedTimeSource implements TimeSource {
+
+    private final AtomicLong localEpochMillis;
+
+    public SimulatedTimeSource(LocalDateTime start) {
+        this.localEpochMillis = new AtomicLong(toEpochMillis(start));
+    }
+
+    @Override
+    public long localEpochMillis() {
+        return localEpochMillis.get();
+    }
+
+    public void advance(Duration duration) {
+        localEpochMillis.addAndGet(duration.toMillis());
+    }
+
+    public void setTime(LocalDateTime time) {
+        localEpochMillis.set(toEpochMillis(time));
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
+    }
+}
@@ -0,0 +1,62 @@
+package de.tum.cit.aet.pse;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Reads the system clock on every call.
+ * <p>
+ * The rules of the default time zone are looked up once, and the offset is
+ * kept until the next transition of the zone, so a call neither looks up
+ * the zone nor allocates. A change of the default time zone after the first
+ * use is not seen.
+ */
+final class SystemTimeSource implements TimeSource {
+
+    static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+    private final ZoneRules rules;
+    private volatile OffsetPeriod period;
+
+    private SystemTimeSource() {
+        rules = ZoneId.systemDefault().getRules();
+        period = OffsetPeriod.of(rules, System.currentTimeMillis());
+    }
+
+    @Override
+    public long localEpochMillis() {
+        long millis = System.currentTimeMillis();
+        OffsetPeriod current = period;
+        if (millis < current.from || millis >= current.until) {
+            current = OffsetPeriod.of(rules, millis);
+            period = current;
+        }
+        return millis + current.offsetMillis;
+    }
+
+    /**
+     * A time span in which the offset of the zone does not change.
+     */
+    private static final class OffsetPeriod {
+
+        private final long from;
+        private final long until;
+        private final long offsetMillis;
+
+        private OffsetPeriod(long from, long until, long offsetMillis) {
+            this.from = from;
+            this.until = until;
+            this.offsetMillis = offsetMillis;
+        }
+
+        // starts at the given time, so a transition at exactly that time cannot make it start too early
+        private static OffsetPeriod of(ZoneRules rules, long millis) {
+            Instant instant = Instant.ofEpochMilli(millis);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            return new OffsetPeriod(millis, next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000,
+                    rules.getOffset(instant).getTotalSeconds() * 1000L);
+        }
+    }
+}
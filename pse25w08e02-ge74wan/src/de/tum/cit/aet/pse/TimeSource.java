@@ -0,0 +1,37 @@
+package de.tum.cit.aet.pse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * The source of the current wall-clock time for rentals and search
+ * criteria. Times are local epoch values: the local date and time read as
+ * if it were UTC, so they can be compared with
+ * {@code LocalDateTime.toEpochSecond(ZoneOffset.UTC)} without looking up a
+ * time zone.
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * @return the current local time in milliseconds since the epoch
+     */
+    long localEpochMillis();
+
+    default long localEpochSecond() {
+        return Math.floorDiv(localEpochMillis(), 1000);
+    }
+
+    default LocalDateTime now() {
+        long millis = localEpochMillis();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * @return the exact time of the system clock in the default time zone
+     */
+    static TimeSource system() {
+        return SystemTimeSource.INSTANCE;
+    }
+}
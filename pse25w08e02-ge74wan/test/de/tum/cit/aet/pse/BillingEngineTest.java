@@ -0,0 +1,98 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillingEngineTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final BillingEngine billingEngine = new BillingEngine();
+
+    @Test
+    void testCostIsRoundedUpToCents() {
+        assertEquals(0, BillingEngine.cost(0, 5));
+        assertEquals(1, BillingEngine.cost(1, 5));
+        assertEquals(5, BillingEngine.cost(60, 5));
+        assertEquals(6, BillingEngine.cost(61, 5));
+    }
+
+    @Test
+    void testTimeElapsedMatchesDuration() {
+        LocalDateTime from = start.plusNanos(700_000_000);
+        Rental rental = new Rental(from, start.plusSeconds(90).plusNanos(100_000_000), null, null);
+        assertEquals(Duration.between(from, rental.getTo()).toSeconds(), rental.timeElapsed());
+    }
+
+    @Test
+    void testBillOnlyCompletedRentals() {
+        Rider caio = new Rider("Caio", 27, true, null);
+        Rider anna = new Rider("Anna", 30, true, null);
+        caio.rent(new EBike(80, "M-1"), start, start.plusMinutes(10));
+        caio.rent(new EMoped(80, "M-2"), start, start.plusMinutes(2).plusSeconds(30));
+        anna.rent(new EBike(80, "M-3"), start, start.plusMinutes(20));
+        anna.rent(new EKickscooter(80, "M-4"), start.plusHours(2), start.plusHours(3));
+
+        BillingReport report = billingEngine.bill(List.of(caio, anna), start.plusHours(1));
+
+        assertEquals(3, report.getRentalCount());
+        assertEquals(30 + 13, report.getTotal(caio));
+        assertEquals(60, report.getTotal(anna));
+        assertEquals(90, report.getTotal(PEVType.EBIKE));
+        assertEquals(13, report.getTotal(PEVType.EMOPED));
+        assertEquals(0, report.getTotal(PEVType.EKICKSCOOTER));
+        assertEquals(103, report.getTotal());
+    }
+
+    @Test
+    void testBillWithPriceAtBookingTime() {
+        Rider caio = new Rider("Caio", 27, true, null);
+        PEV eBike = new EBike(80, "M-1");
+        caio.rent(eBike, start, start.plusMinutes(10));
+        eBike.setPricePerMinute(10);
+        caio.rent(eBike, start.plusMinutes(10), start.plusMinutes(20));
+
+        BillingReport report = billingEngine.bill(List.of(caio), start.plusHours(1));
+
+        assertEquals(30 + 100, report.getTotal(caio));
+    }
+
+    /*
+     * Bills 1M random rentals, compares the totals with a sequential
+     * computation and prints how many rentals per second were billed.
+     */
+    @Test
+    void testBillManyRentals() {
+        Random random = new Random(5);
+        List<Rider> riders = new ArrayList<>();
+        long expected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Rider rider = new Rider("Rider " + i, 27, true, null);
+            PEV pev = i % 2 == 0 ? new EBike(80, "M-" + i) : new EMoped(80, "M-" + i);
+            LocalDateTime from = start;
+            for (int j = 0; j < 100; j++) {
+                LocalDateTime to = from.plusSeconds(random.nextInt(3_600));
+                Rental rental = rider.rent(pev, from, to);
+                expected += (Duration.between(from, to).toSeconds() * pev.getPricePerMinute() + 59) / 60;
+                from = rental.getTo();
+            }
+            riders.add(rider);
+        }
+
+        long begin = System.nanoTime();
+        BillingReport report = billingEngine.bill(riders, start.plusYears(1));
+        long duration = System.nanoTime() - begin;
+
+        assertEquals(1_000_000, report.getRentalCount());
+        assertEquals(expected, report.getTotal());
+        assertEquals(expected, report.getRiderTotals().values().stream().mapToLong(Long::longValue).sum());
+        System.out.printf("%,d rentals billed/s%n", report.getRentalCount() * TimeUnit.SECONDS.toNanos(1) / duration);
+    }
+}
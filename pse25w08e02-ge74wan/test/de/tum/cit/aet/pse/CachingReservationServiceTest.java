@@ -0,0 +1,96 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingReservationServiceTest {
+
+    private final LocalDateTime from = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final LocalDateTime to = from.plusMinutes(30);
+    private final Rider rider = new Rider("Caio", 27, true, null);
+    private final InMemoryReservationService service = new InMemoryReservationService();
+    private final CachingReservationService cache = new CachingReservationService(service,
+            Duration.ofMinutes(5), 2);
+
+    @Test
+    void testNearlySameWindowsShareEntry() {
+        PEV pev = new EBike(80, "M-1");
+        service.addPEV(pev);
+
+        Set<PEV> first = cache.findAvailablePEVs(from, to);
+        first.clear();
+        assertEquals(Set.of(pev), cache.findAvailablePEVs(from.plusMinutes(1), to.minusSeconds(30)));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void testBookingInvalidatesOnlyOverlappingEntriesWithPEV() {
+        PEV booked = new EBike(80, "M-1");
+        PEV other = new EBike(80, "M-2");
+        service.addPEV(booked);
+        service.addPEV(other);
+        cache.findAvailablePEVs(from, to);
+        cache.findAvailablePEVs(to, to.plusMinutes(30));
+
+        booked.rent(from.plusMinutes(10), from.plusMinutes(20), rider);
+
+        assertEquals(0, cache.getInvalidationCount());
+        assertEquals(Set.of(other), cache.findAvailablePEVs(from, to));
+        assertEquals(Set.of(booked, other), cache.findAvailablePEVs(to, to.plusMinutes(30)));
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        service.addPEV(new EBike(80, "M-1"));
+        cache.findAvailablePEVs(from, to);
+        cache.findAvailablePEVs(to, to.plusMinutes(30));
+        cache.findAvailablePEVs(from, to);
+        cache.findAvailablePEVs(from.plusHours(1), to.plusHours(1));
+
+        assertEquals(1, cache.getEvictionCount());
+        cache.findAvailablePEVs(from, to);
+        assertEquals(2, cache.getHitCount());
+    }
+
+    /*
+     * Books random time frames between random slot-aligned queries and
+     * expects the cache to always answer like the underlying service.
+     */
+    @Test
+    void testCacheMatchesServiceWhileBooking() {
+        CachingReservationService largeCache = new CachingReservationService(service, Duration.ofMinutes(5), 64);
+        List<PEV> fleet = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            fleet.add(new EKickscooter(80, "M-" + i));
+            service.addPEV(fleet.get(i));
+        }
+        Random random = new Random(23);
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = from.plusMinutes(5L * random.nextInt(50));
+            LocalDateTime end = start.plusMinutes(5L * random.nextInt(6));
+            assertEquals(service.findAvailablePEVs(start, end), largeCache.findAvailablePEVs(start, end));
+
+            LocalDateTime rentFrom = from.plusMinutes(random.nextInt(250));
+            try {
+                fleet.get(random.nextInt(fleet.size())).rent(rentFrom, rentFrom.plusMinutes(random.nextInt(20)),
+                        rider);
+            } catch (IllegalArgumentException ignored) {
+                // already booked
+            }
+        }
+        assertTrue(largeCache.getHitCount() > 0);
+    }
+}
@@ -0,0 +1,180 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarFleetStoreTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final Rider rider = new Rider("Caio", 27, true, null);
+
+    @Test
+    void testViewReadsAndWritesStore() {
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        PEV pev = new EMoped(70, "M-1");
+        pev.rent(start, start.plusMinutes(10), rider);
+        PEV view = store.view(store.addPEV(pev));
+
+        assertEquals(PEVType.EMOPED, view.getType());
+        assertEquals("M-1", view.getLicensePlate());
+        assertEquals(70, view.getChargeLevel());
+        assertEquals(5, view.getPricePerMinute());
+        assertEquals(1, view.getRentals().size());
+        assertThrows(IllegalArgumentException.class, () -> view.rent(start, start.plusMinutes(5), rider));
+
+        view.rent(start.plusMinutes(10), start.plusMinutes(20), rider);
+        view.setChargeLevel(40);
+        view.lock();
+        PEV otherView = store.view(0);
+        assertEquals(2, otherView.getRentals().size());
+        assertEquals(40, otherView.getChargeLevel());
+        assertFalse(otherView.isAvailable());
+        assertEquals(pev, otherView);
+    }
+
+    @Test
+    void testViewNotifiesListenersThroughStore() {
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        int id = store.addPEV(PEVType.EBIKE, "M-1", 50, 3);
+        List<Rental> booked = new ArrayList<>();
+        List<PEV> changed = new ArrayList<>();
+        store.view(id).addListener(new PEVListener() {
+            @Override
+            public void rentalBooked(Rental rental) {
+                booked.add(rental);
+            }
+
+            @Override
+            public void pevChanged(PEV pev) {
+                changed.add(pev);
+            }
+        });
+
+        PEV view = store.view(id);
+        Rental rental = view.rent(start, start.plusMinutes(10), rider);
+        store.rent(id, toEpochSecond(start.plusHours(1)), toEpochSecond(start.plusHours(2)));
+        view.setPricePerMinute(4);
+
+        assertEquals(2, booked.size());
+        assertSame(rental, booked.get(0));
+        assertEquals(start.plusHours(1), booked.get(1).getFrom());
+        assertEquals(List.of(view), changed);
+        assertEquals(4, store.view(id).getPricePerMinute());
+    }
+
+    @Test
+    void testOnlyTheRentalOfARideCanStopIt() {
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        int id = store.addPEV(PEVType.EBIKE, "M-1", 50, 3);
+        Rental ride = store.view(id).rent(start, start.plusMinutes(10), rider);
+        Rental other = store.view(id).rent(start.plusMinutes(10), start.plusMinutes(20), null);
+
+        ride.start(new SimulatedTimeSource(start));
+        assertThrows(IllegalStateException.class, other::stop);
+        assertSame(ride, store.getActiveRental(id));
+
+        store.unlock(id);
+        store.lock(id);
+        assertThrows(IllegalStateException.class, ride::stop);
+        assertEquals(PEVState.IN_RIDE, store.getState(id));
+    }
+
+    /*
+     * Books the same random time frames on a PEV of the object model and on
+     * a stored PEV, and expects both to take the same decisions.
+     */
+    @Test
+    void testRentMatchesObjectModel() {
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        PEV pev = new EBike(50, "M-1");
+        int id = store.addPEV(PEVType.EBIKE, "M-1", 50, 3);
+        Random random = new Random(3);
+
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime from = start.plusMinutes(random.nextInt(20_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(30));
+            boolean booked = store.rent(id, from.toEpochSecond(ZoneOffset.UTC),
+                    to.toEpochSecond(ZoneOffset.UTC));
+            try {
+                pev.rent(from, to, rider);
+                assertTrue(booked);
+            } catch (IllegalArgumentException e) {
+                assertFalse(booked);
+            }
+        }
+        assertEquals(pev.getRentals().size(), store.getRentalCount(id));
+    }
+
+    /*
+     * Builds the same fleet in the object model and in the store, and
+     * measures how many bytes the current thread allocated for each,
+     * including the garbage of growing arrays. The store has to allocate
+     * less than half of the object model, and its estimated footprint cannot
+     * exceed what was allocated for it.
+     */
+    @Test
+    void testFootprintIsSmallerThanObjectModel() {
+        int vehicles = 5_000;
+        int rentalsPerVehicle = 20;
+        // everything both models share is created up front and not measured
+        String[] licensePlates = new String[vehicles];
+        for (int i = 0; i < vehicles; i++) {
+            licensePlates[i] = "M-" + i;
+        }
+        LocalDateTime[] froms = new LocalDateTime[rentalsPerVehicle];
+        LocalDateTime[] tos = new LocalDateTime[rentalsPerVehicle];
+        long[] fromSeconds = new long[rentalsPerVehicle];
+        long[] toSeconds = new long[rentalsPerVehicle];
+        for (int j = 0; j < rentalsPerVehicle; j++) {
+            froms[j] = start.plusHours(j);
+            tos[j] = froms[j].plusMinutes(30);
+            fromSeconds[j] = toEpochSecond(froms[j]);
+            toSeconds[j] = toEpochSecond(tos[j]);
+        }
+
+        long before = allocatedBytes();
+        List<PEV> fleet = new ArrayList<>(vehicles);
+        for (int i = 0; i < vehicles; i++) {
+            PEV pev = new EBike(50, licensePlates[i]);
+            for (int j = 0; j < rentalsPerVehicle; j++) {
+                pev.rent(froms[j], tos[j], rider);
+            }
+            fleet.add(pev);
+        }
+        long objectModelBytes = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        ColumnarFleetStore store = new ColumnarFleetStore();
+        for (int i = 0; i < vehicles; i++) {
+            int id = store.addPEV(PEVType.EBIKE, licensePlates[i], 50, 3);
+            for (int j = 0; j < rentalsPerVehicle; j++) {
+                store.rent(id, fromSeconds[j], toSeconds[j]);
+            }
+        }
+        long storeBytes = allocatedBytes() - before;
+        long footprintBytes = store.footprintBytes();
+
+        System.out.printf("object model: %,d bytes, store: %,d bytes allocated, %,d bytes estimated%n",
+                objectModelBytes, storeBytes, footprintBytes);
+        assertEquals(vehicles, fleet.size());
+        assertTrue(storeBytes * 2 < objectModelBytes);
+        assertTrue(footprintBytes <= storeBytes);
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
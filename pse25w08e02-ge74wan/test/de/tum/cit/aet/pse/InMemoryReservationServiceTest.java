@@ -0,0 +1,136 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryReservationServiceTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final Rider rider = new Rider("Caio", 27, true, null);
+
+    @Test
+    void testFindAvailablePEVsExcludesBookedPEVs() {
+        InMemoryReservationService service = new InMemoryReservationService();
+        PEV booked = new EBike(80, "M-1");
+        PEV free = new EMoped(80, "M-2");
+        booked.rent(start, start.plusHours(1), rider);
+        service.addPEV(booked);
+        service.addPEV(free);
+
+        assertEquals(Set.of(free), service.findAvailablePEVs(start.plusMinutes(10), start.plusMinutes(20)));
+        assertEquals(Set.of(booked, free), service.findAvailablePEVs(start.plusHours(1), start.plusHours(2)));
+
+        free.rent(start.plusMinutes(50), start.plusMinutes(70), rider);
+        assertEquals(Set.of(), service.findAvailablePEVs(start.plusMinutes(55), start.plusMinutes(65)));
+    }
+
+    @Test
+    void testPruneBeforeRejectsPrunedTimeFrames() {
+        InMemoryReservationService service = new InMemoryReservationService();
+        PEV pev = new EBike(80, "M-1");
+        pev.rent(start, start.plusHours(1), rider);
+        pev.rent(start.plusDays(1), start.plusDays(1).plusHours(1), rider);
+        service.addPEV(pev);
+
+        service.pruneBefore(start.plusHours(2));
+
+        assertThrows(IllegalArgumentException.class, () -> service.findAvailablePEVs(start, start.plusMinutes(10)));
+        assertEquals(Set.of(), service.findAvailablePEVs(start.plusDays(1), start.plusDays(1).plusMinutes(10)));
+        assertEquals(Set.of(pev), service.findAvailablePEVs(start.plusHours(2), start.plusHours(3)));
+    }
+
+    /*
+     * Books random time frames with an odd slot length and second precision
+     * and compares every query with a scan over all PEVs of the fleet.
+     */
+    @Test
+    void testFindAvailablePEVsMatchesScan() {
+        InMemoryReservationService service = new InMemoryReservationService(Duration.ofMinutes(7));
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            service.addPEV(new EKickscooter(50, "M-" + i));
+        }
+        List<PEV> fleet = service.getFleet();
+
+        for (int i = 0; i < 2_000; i++) {
+            PEV pev = fleet.get(random.nextInt(fleet.size()));
+            LocalDateTime from = start.plusSeconds(random.nextInt(500_000));
+            try {
+                pev.rent(from, from.plusSeconds(random.nextInt(3_600)), rider);
+            } catch (IllegalArgumentException ignored) {
+                // already booked
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = start.plusSeconds(random.nextInt(500_000));
+            LocalDateTime to = from.plusSeconds(random.nextInt(7_200));
+            Set<PEV> expected = fleet.stream().filter(pev -> !pev.isBooked(from, to)).collect(Collectors.toSet());
+            assertEquals(expected, service.findAvailablePEVs(from, to));
+        }
+    }
+
+    /*
+     * Books the same slots on thousands of PEVs from several threads at
+     * once, which sets neighbouring bits and grows the index of a slot
+     * concurrently, while other threads query. No booking may be lost.
+     */
+    @Test
+    void testConcurrentBookingsAreAllIndexed() throws Exception {
+        InMemoryReservationService service = new InMemoryReservationService();
+        int threads = 8;
+        int pevsPerThread = 1_000;
+        for (int i = 0; i < threads * pevsPerThread; i++) {
+            service.addPEV(new EBike(80, "M-" + i));
+        }
+        List<PEV> fleet = service.getFleet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 2);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                int first = thread;
+                tasks.add(executor.submit(() -> {
+                    go.await();
+                    // interleaved ids, so all threads set bits in the same words
+                    for (int id = first; id < fleet.size(); id += threads) {
+                        fleet.get(id).rent(start.plusMinutes(id % 4), start.plusHours(1), rider);
+                    }
+                    return null;
+                }));
+            }
+            for (int query = 0; query < 2; query++) {
+                tasks.add(executor.submit(() -> {
+                    go.await();
+                    for (int i = 0; i < 200; i++) {
+                        service.findAvailablePEVs(start.plusMinutes(5), start.plusMinutes(10));
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(Set.of(), service.findAvailablePEVs(start.plusMinutes(5), start.plusMinutes(10)));
+        assertEquals(Set.of(), service.findAvailablePEVs(start.plusMinutes(15), start.plusMinutes(45)));
+        assertEquals(fleet.size(), service.findAvailablePEVs(start.plusHours(1), start.plusHours(2)).size());
+    }
+}
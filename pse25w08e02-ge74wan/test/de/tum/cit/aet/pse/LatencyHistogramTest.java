@@ -0,0 +1,40 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    /*
+     * Records random latencies and compares the percentiles with the exact
+     * ones of the sorted values.
+     */
+    @Test
+    void testPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(17);
+        long[] latencies = new long[100_000];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = (long) Math.exp(random.nextDouble() * 25);
+            histogram.record(latencies[i]);
+        }
+        Arrays.sort(latencies);
+
+        assertEquals(latencies.length, histogram.getCount());
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = latencies[(int) Math.ceil(percentile / 100 * latencies.length) - 1];
+            long reported = histogram.getPercentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 8, percentile + "th percentile");
+        }
+        assertEquals(histogram.getPercentile(50), histogram.getP50());
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getP99());
+    }
+}
@@ -0,0 +1,159 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PEVConcurrencyTest {
+
+    private static final int VEHICLES = 32;
+    private static final int BOOKINGS_PER_THREAD = 2_000;
+    private static final int SLOTS = 500;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+
+    /*
+     * Lets 1 to 64 threads book random slots on a small fleet at the same
+     * time and checks afterwards that no vehicle was booked twice for the
+     * same time frame. The achieved bookings per second are printed.
+     */
+    @Test
+    void testConcurrentRentNeverDoubleBooks() throws InterruptedException {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            List<PEV> fleet = new ArrayList<>();
+            for (int i = 0; i < VEHICLES; i++) {
+                fleet.add(new EBike(100, "M-" + i));
+            }
+            AtomicInteger accepted = new AtomicInteger();
+            long duration = runConcurrently(threads, () -> {
+                Rider rider = new Rider(Thread.currentThread().getName(), 30, true, null);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    PEV pev = fleet.get(random.nextInt(VEHICLES));
+                    LocalDateTime from = start.plusMinutes(random.nextInt(SLOTS * 10));
+                    try {
+                        pev.rent(from, from.plusMinutes(1 + random.nextInt(20)), rider);
+                        accepted.incrementAndGet();
+                    } catch (IllegalArgumentException ignored) {
+                        // already booked by another rider
+                    }
+                }
+            });
+
+            int booked = 0;
+            for (PEV pev : fleet) {
+                assertNoOverlap(pev.getRentals());
+                booked += pev.getRentals().size();
+            }
+            assertEquals(accepted.get(), booked);
+            System.out.printf("%2d threads: %,d bookings/s%n", threads,
+                    (long) threads * BOOKINGS_PER_THREAD * TimeUnit.SECONDS.toNanos(1) / duration);
+        }
+    }
+
+    @Test
+    void testConcurrentRentOfSameSlotHasSingleWinner() throws InterruptedException {
+        PEV pev = new EMoped(100, "M-1");
+        AtomicInteger accepted = new AtomicInteger();
+        runConcurrently(8, () -> {
+            Rider rider = new Rider(Thread.currentThread().getName(), 27, true, null);
+            for (int i = 0; i < SLOTS; i++) {
+                try {
+                    pev.rent(start.plusMinutes(i), start.plusMinutes(i + 1), rider);
+                    accepted.incrementAndGet();
+                } catch (IllegalArgumentException ignored) {
+                    // another thread won this slot
+                }
+            }
+        });
+        assertEquals(SLOTS, accepted.get());
+        assertEquals(SLOTS, pev.getRentals().size());
+    }
+
+    /*
+     * Lets 256 threads start and stop rides on 4 hot vehicles. Every start
+     * must be won by one rider only, so no vehicle ever has two riders. The
+     * achieved transitions per second are printed.
+     */
+    @Test
+    void testConcurrentStartAndStopHaveSingleWinner() throws InterruptedException {
+        int threads = 256;
+        int attempts = 2_000;
+        List<PEV> hot = List.of(new EBike(100, "M-1"), new EBike(100, "M-2"), new EMoped(100, "M-3"),
+                new EKickscooter(100, "M-4"));
+        List<AtomicInteger> riders = List.of(new AtomicInteger(), new AtomicInteger(), new AtomicInteger(),
+                new AtomicInteger());
+        AtomicInteger rides = new AtomicInteger();
+        AtomicInteger doubleRides = new AtomicInteger();
+        LocalDateTime now = LocalDateTime.now();
+        long duration = runConcurrently(threads, () -> {
+            Rider rider = new Rider(Thread.currentThread().getName(), 30, true, null);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < attempts; i++) {
+                int vehicle = random.nextInt(hot.size());
+                Rental rental = new Rental(now, now, hot.get(vehicle), rider);
+                try {
+                    rental.start();
+                } catch (IllegalStateException e) {
+                    continue;
+                }
+                if (riders.get(vehicle).incrementAndGet() > 1 || rider.getPEV() != hot.get(vehicle)) {
+                    doubleRides.incrementAndGet();
+                }
+                riders.get(vehicle).decrementAndGet();
+                rental.stop();
+                rides.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, doubleRides.get());
+        assertTrue(rides.get() > 0);
+        for (PEV pev : hot) {
+            assertEquals(PEVState.AVAILABLE, pev.getState());
+        }
+        System.out.printf("%d threads on %d vehicles: %,d start attempts/s, %,d rides%n", threads, hot.size(),
+                (long) threads * attempts * TimeUnit.SECONDS.toNanos(1) / duration, rides.get());
+    }
+
+    private static void assertNoOverlap(List<Rental> rentals) {
+        List<Rental> sorted = new ArrayList<>(rentals);
+        sorted.sort((a, b) -> a.getFrom().compareTo(b.getFrom()));
+        for (int i = 1; i < sorted.size(); i++) {
+            assertFalse(sorted.get(i).getFrom().isBefore(sorted.get(i - 1).getTo()), "double booking");
+        }
+    }
+
+    private static long runConcurrently(int threads, Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        go.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        return System.nanoTime() - begin;
+    }
+}
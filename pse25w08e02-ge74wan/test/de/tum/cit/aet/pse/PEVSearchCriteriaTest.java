@@ -0,0 +1,101 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PEVSearchCriteriaTest {
+
+    private final PEV eBike = new EBike(80, "M-1");
+    private final PEV eKickscooter = new EKickscooter(80, "M-2");
+    private final PEV eMoped = new EMoped(80, "M-3");
+
+    @Test
+    void testRetainAllowedFiltersByRestrictions() {
+        DriversLicense expired = new DriversLicense(LocalDateTime.now().minusDays(1), "Caio");
+        Rider rider = new Rider("Caio", 15, true, expired);
+        Set<PEV> pevs = new HashSet<>(Set.of(eBike, eKickscooter, eMoped));
+
+        rider.getSearchCriteria().retainAllowed(pevs);
+
+        assertEquals(Set.of(eBike), pevs);
+    }
+
+    @Test
+    void testAllowedViewFollowsCandidates() {
+        Rider rider = new Rider("Caio", 27, true, null);
+        Set<PEV> pevs = new HashSet<>(Set.of(eBike, eKickscooter, eMoped));
+        Set<PEV> allowed = rider.getSearchCriteria().allowedView(pevs);
+
+        assertEquals(Set.of(eBike, eKickscooter), allowed);
+        assertFalse(allowed.contains(eMoped));
+        pevs.remove(eBike);
+        assertEquals(Set.of(eKickscooter), allowed);
+        assertEquals(1, allowed.size());
+        pevs.remove(eKickscooter);
+        assertTrue(allowed.isEmpty());
+        assertEquals(1, pevs.size());
+        assertThrows(UnsupportedOperationException.class, () -> allowed.add(eBike));
+    }
+
+    /*
+     * Filters 100k candidates in place and through a view and expects the
+     * current thread to allocate far less than a single object per PEV.
+     */
+    @Test
+    void testFilteringDoesNotAllocatePerPEV() {
+        Rider rider = new Rider("Caio", 15, true, null);
+        PEVSearchCriteria criteria = rider.getSearchCriteria();
+        Set<PEV> pevs = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            pevs.add(i % 2 == 0 ? new EBike(80, "M-" + i) : new EMoped(80, "M-" + i));
+        }
+        Set<PEV> allowed = criteria.allowedView(pevs);
+        assertEquals(50_000, allowed.size());
+
+        long before = allocatedBytes();
+        int count = allowed.size();
+        criteria.retainAllowed(pevs);
+        long allocated = allocatedBytes() - before;
+
+        assertEquals(50_000, count);
+        assertEquals(50_000, pevs.size());
+        assertTrue(allocated < 10_000, allocated + " bytes allocated");
+    }
+
+    @Test
+    void testSearchCriteriaAreCachedUntilRiderChanges() {
+        Rider rider = new Rider("Caio", 27, false, null);
+        PEVSearchCriteria criteria = rider.getSearchCriteria();
+        assertSame(criteria, rider.getSearchCriteria());
+        assertFalse(criteria.isPEVAllowed(eKickscooter));
+
+        rider.setHasHelmet(true);
+        assertNotSame(criteria, rider.getSearchCriteria());
+        assertTrue(rider.getSearchCriteria().isPEVAllowed(eKickscooter));
+        assertFalse(rider.getSearchCriteria().isPEVAllowed(eMoped));
+
+        rider.receiveDriversLicense();
+        assertTrue(rider.getSearchCriteria().isPEVAllowed(eMoped));
+    }
+
+    @Test
+    void testSearchCriteriaExpireWithDriversLicense() {
+        DriversLicense license = new DriversLicense(LocalDateTime.now().plusSeconds(1), "Caio");
+        Rider rider = new Rider("Caio", 27, true, license);
+        assertFalse(rider.getSearchCriteria().isExpired());
+
+        DriversLicense unlimited = new DriversLicense(LocalDateTime.MAX, "Caio");
+        assertFalse(new PEVSearchCriteria(new Rider("Caio", 27, true, unlimited)).isExpired());
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
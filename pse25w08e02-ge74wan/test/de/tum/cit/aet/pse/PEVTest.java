@@ -0,0 +1,172 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PEVTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final Rider rider = new Rider("Caio", 27, true, null);
+
+    @Test
+    void testRentRejectsOverlappingTimeFrame() {
+        PEV pev = new EBike(80, "MUC");
+        pev.rent(start, start.plusMinutes(30), rider);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.rent(start.plusMinutes(10), start.plusMinutes(40), rider));
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.rent(start.minusMinutes(10), start.plusMinutes(1), rider));
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.rent(start.plusMinutes(5), start.plusMinutes(5), rider));
+        assertEquals(1, pev.getRentals().size());
+    }
+
+    @Test
+    void testFailingListenerKeepsBooking() {
+        PEV pev = new EBike(80, "MUC");
+        List<Rental> booked = new ArrayList<>();
+        pev.addListener(rental -> {
+            throw new IllegalStateException("failed");
+        });
+        pev.addListener(booked::add);
+
+        Rental rental = rider.tryRent(pev, start, start.plusMinutes(30));
+        assertNotNull(rental);
+        assertEquals(List.of(rental), booked);
+        assertEquals(List.of(rental), pev.getRentals());
+    }
+
+    @Test
+    void testRentAcceptsAdjacentTimeFrames() {
+        PEV pev = new EBike(80, "MUC");
+        pev.rent(start, start.plusMinutes(30), rider);
+        pev.rent(start.plusMinutes(30), start.plusMinutes(60), rider);
+        pev.rent(start.minusMinutes(30), start, rider);
+        pev.rent(start, start, rider);
+
+        assertEquals(4, pev.getRentals().size());
+        assertThrows(UnsupportedOperationException.class, () -> pev.getRentals().clear());
+    }
+
+    @Test
+    void testGetRentalsIsSnapshot() {
+        PEV pev = new EBike(80, "MUC");
+        Rental first = pev.rent(start, start.plusMinutes(30), rider);
+        List<Rental> snapshot = pev.getRentals();
+        pev.rent(start.plusMinutes(30), start.plusMinutes(60), rider);
+
+        assertEquals(List.of(first), snapshot);
+        assertEquals(2, pev.getRentalCount());
+        assertEquals(2, pev.getRentals().size());
+    }
+
+    /*
+     * Books random time frames and compares every decision of the indexed
+     * booking check with a linear scan over all accepted rentals.
+     */
+    @Test
+    void testRentMatchesLinearScan() {
+        PEV pev = new EKickscooter(50, "M-AB");
+        List<Rental> accepted = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime from = start.plusMinutes(random.nextInt(20_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(30));
+            boolean expectedBooked = accepted.stream()
+                    .anyMatch(rental -> from.isBefore(rental.getTo()) && rental.getFrom().isBefore(to));
+            try {
+                accepted.add(pev.rent(from, to, rider));
+                assertFalse(expectedBooked);
+            } catch (IllegalArgumentException e) {
+                assertTrue(expectedBooked);
+            }
+        }
+        assertEquals(accepted, pev.getRentals());
+    }
+
+    @Test
+    void testPEVStaysInHashSetWhileItChanges() {
+        PEV pev = new EBike(80, "MUC");
+        Set<PEV> pevs = new HashSet<>(Set.of(pev));
+
+        pev.rent(start, start.plusMinutes(30), rider);
+        pev.setChargeLevel(20);
+        pev.lock();
+
+        assertTrue(pevs.contains(pev));
+        assertEquals(new EMoped(10, "MUC"), pev);
+    }
+
+    @Test
+    void testStateTransitions() {
+        PEV pev = new EBike(80, "MUC");
+        assertTrue(pev.compareAndSetState(PEVState.AVAILABLE, PEVState.RESERVED));
+        assertFalse(pev.isAvailable());
+        assertThrows(IllegalStateException.class, pev::lock);
+        assertThrows(IllegalStateException.class, pev::unlock);
+
+        assertTrue(pev.compareAndSetState(PEVState.RESERVED, PEVState.IN_RIDE));
+        assertFalse(pev.compareAndSetState(PEVState.AVAILABLE, PEVState.CHARGING));
+        assertThrows(IllegalArgumentException.class,
+                () -> pev.compareAndSetState(PEVState.CHARGING, PEVState.IN_RIDE));
+        pev.unlock();
+        assertEquals(PEVState.AVAILABLE, pev.getState());
+    }
+
+    @Test
+    void testOnlyTheRentalOfARideCanStopIt() {
+        PEV pev = new EBike(80, "MUC");
+        Rider anna = new Rider("Anna", 30, true, null);
+        TimeSource timeSource = new SimulatedTimeSource(start);
+        Rental ride = rider.rent(pev, start, start.plusMinutes(30));
+        Rental other = anna.rent(pev, start.plusMinutes(30), start.plusMinutes(60));
+
+        ride.start(timeSource);
+        assertThrows(IllegalStateException.class, other::stop);
+        assertThrows(IllegalStateException.class, () -> ride.start(timeSource));
+        assertSame(ride, pev.getActiveRental());
+        assertSame(pev, rider.getPEV());
+        assertNull(anna.getPEV());
+
+        ride.stop();
+        assertThrows(IllegalStateException.class, ride::stop);
+        assertNull(pev.getActiveRental());
+        assertNull(rider.getPEV());
+        assertTrue(pev.isAvailable());
+    }
+
+    @Test
+    void testContentFingerprintFollowsChanges() {
+        PEV first = new EBike(80, "MUC");
+        PEV second = new EBike(80, "MUC");
+        assertEquals(first.getContentFingerprint(), second.getContentFingerprint());
+
+        long fingerprint = first.getContentFingerprint();
+        first.setChargeLevel(79);
+        assertNotEquals(fingerprint, first.getContentFingerprint());
+        first.setChargeLevel(80);
+        assertEquals(fingerprint, first.getContentFingerprint());
+
+        first.lock();
+        assertNotEquals(fingerprint, first.getContentFingerprint());
+        first.unlock();
+        assertEquals(fingerprint, first.getContentFingerprint());
+
+        first.rent(start, start.plusMinutes(10), rider);
+        first.rent(start.plusMinutes(10), start.plusMinutes(20), rider);
+        second.rent(start.plusMinutes(10), start.plusMinutes(20), rider);
+        assertNotEquals(first.getContentFingerprint(), second.getContentFingerprint());
+        second.rent(start, start.plusMinutes(10), rider);
+        assertEquals(first.getContentFingerprint(), second.getContentFingerprint());
+    }
+}
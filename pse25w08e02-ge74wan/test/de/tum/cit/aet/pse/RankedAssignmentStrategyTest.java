@@ -0,0 +1,63 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedAssignmentStrategyTest {
+
+    private final LocalDateTime from = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final LocalDateTime to = from.plusMinutes(30);
+    private final RankedAssignmentStrategy strategy = new RankedAssignmentStrategy();
+
+    @Test
+    void testChooseFollowsChargeLevelChanges() {
+        PEV low = register(new EBike(20, "M-1"));
+        PEV high = register(new EBike(90, "M-2"));
+        assertSame(high, strategy.choose(Set.of(low, high), from, to));
+        assertSame(low, strategy.choose(Set.of(low), from, to));
+
+        high.setChargeLevel(10);
+        assertSame(low, strategy.choose(Set.of(low, high), from, to));
+    }
+
+    @Test
+    void testChoosePrefersCheaperPEVWithSameChargeLevel() {
+        PEV eMoped = register(new EMoped(50, "M-1"));
+        PEV eKickscooter = register(new EKickscooter(50, "M-2"));
+        assertSame(eKickscooter, strategy.choose(Set.of(eMoped, eKickscooter), from, to));
+    }
+
+    @Test
+    void testChoosePacksRentalsOfEquallyRankedPEVs() {
+        Rider rider = new Rider("Caio", 27, true, null);
+        PEV loose = register(new EBike(50, "M-1"));
+        PEV packed = register(new EBike(50, "M-2"));
+        loose.rent(from.minusHours(3), from.minusHours(2), rider);
+        packed.rent(from.minusMinutes(30), from, rider);
+        packed.rent(to, to.plusMinutes(10), rider);
+
+        assertSame(packed, strategy.choose(Set.of(loose, packed), from, to));
+    }
+
+    @Test
+    void testChooseRanksCandidatesBehindManyBetterPEVs() {
+        for (int i = 0; i < 100; i++) {
+            register(new EBike(90, "M-" + i));
+        }
+        PEV low = register(new EBike(20, "L-1"));
+        PEV lower = register(new EBike(10, "L-2"));
+        PEV unregistered = new EBike(15, "L-3");
+
+        assertSame(low, strategy.choose(Set.of(low, lower, unregistered), from, to));
+        assertSame(unregistered, strategy.choose(Set.of(lower, unregistered), from, to));
+    }
+
+    private PEV register(PEV pev) {
+        strategy.register(pev);
+        return pev;
+    }
+}
@@ -0,0 +1,149 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRestoreRentalsAndStartedRides() throws IOException {
+        Rider caio = new Rider("Caio", 27, true, null);
+        Rider anna = new Rider("Anna", 30, true, null);
+        PEV eBike = new EBike(80, "M-1");
+        PEV eMoped = new EMoped(80, "M-2");
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try (RentalJournal journal = open()) {
+            journal.attach(eBike);
+            journal.attach(eMoped);
+            for (int i = 0; i < 200; i++) {
+                caio.rent(eBike, start.plusMinutes(i), start.plusMinutes(i + 1));
+            }
+            caio.rent(eMoped, now, now.plusMinutes(30)).start();
+            Rental stopped = anna.rent(eBike, now, now.plusMinutes(30));
+            stopped.start();
+            stopped.stop();
+        }
+
+        Rider restoredCaio = new Rider("Caio", 27, true, null);
+        Rider restoredAnna = new Rider("Anna", 30, true, null);
+        PEV restoredEBike = new EBike(80, "M-1");
+        PEV restoredEMoped = new EMoped(80, "M-2");
+        try (RentalJournal journal = open()) {
+            assertEquals(205, journal.restore(List.of(restoredEBike, restoredEMoped),
+                    Map.of("Caio", restoredCaio, "Anna", restoredAnna)::get));
+        }
+
+        assertEquals(times(eBike.getRentals()), times(restoredEBike.getRentals()));
+        assertEquals(times(eMoped.getRentals()), times(restoredEMoped.getRentals()));
+        assertEquals(201, restoredCaio.getRentals().size());
+        assertTrue(restoredEBike.isAvailable());
+        assertFalse(restoredEMoped.isAvailable());
+        assertSame(restoredEMoped, restoredCaio.getPEV());
+        assertNull(restoredAnna.getPEV());
+        assertTrue(restoredCaio.getRentals().contains(restoredEMoped.getActiveRental()));
+    }
+
+    @Test
+    void testSnapshotReplacesSegments() throws IOException {
+        PEV pev = new EBike(80, "M-1");
+        try (RentalJournal journal = open()) {
+            journal.attach(pev);
+            for (int i = 0; i < 500; i++) {
+                pev.rent(start.plusMinutes(i), start.plusMinutes(i + 1), null);
+            }
+            journal.snapshot(List.of(pev));
+            pev.rent(start.minusMinutes(1), start, null);
+            pev.rent(start.minusMinutes(1), start.minusMinutes(1), null);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+
+        PEV restored = new EBike(80, "M-1");
+        try (RentalJournal journal = open()) {
+            assertEquals(502, journal.restore(List.of(restored), name -> null));
+            restored.rent(start.plusDays(1), start.plusDays(1), null);
+        }
+        PEV restoredAgain = new EBike(80, "M-1");
+        try (RentalJournal journal = open()) {
+            journal.restore(List.of(restoredAgain), name -> null);
+        }
+        assertEquals(503, restoredAgain.getRentals().size());
+    }
+
+    @Test
+    void testCloseDetachesFromPEVs() throws IOException {
+        Rider caio = new Rider("Caio", 27, true, null);
+        PEV pev = new EBike(80, "M-1");
+        List<Rental> booked = new ArrayList<>();
+        RentalJournal journal = open();
+        journal.attach(pev);
+        pev.addListener(booked::add);
+        journal.close();
+
+        Rental rental = caio.rent(pev, start, start.plusMinutes(30));
+        assertNotNull(rental);
+        assertEquals(List.of(rental), caio.getRentals());
+        assertEquals(List.of(rental), booked);
+        assertThrows(IllegalStateException.class, () -> journal.attach(pev));
+    }
+
+    /*
+     * Appends 1M bookings and prints how many records per second are
+     * written and replayed.
+     */
+    @Test
+    void testReplayManyRecords() throws IOException {
+        int records = 1_000_000;
+        Rider rider = new Rider("Caio", 27, true, null);
+        PEV pev = new EBike(80, "M-1");
+        long begin = System.nanoTime();
+        try (RentalJournal journal = RentalJournal.open(directory)) {
+            for (int i = 0; i < records; i++) {
+                journal.rentalBooked(new Rental(start.plusMinutes(i), start.plusMinutes(i + 1), pev, rider));
+            }
+        }
+        long written = System.nanoTime();
+
+        long[] minutes = new long[1];
+        try (RentalJournal journal = RentalJournal.open(directory)) {
+            assertEquals(records, journal.replay((type, licensePlate, riderName, from, to) ->
+                    minutes[0] += (to - from) / 60));
+        }
+        long replayed = System.nanoTime();
+
+        assertEquals(records, minutes[0]);
+        System.out.printf("%,d records written/s, %,d records replayed/s%n",
+                records * TimeUnit.SECONDS.toNanos(1) / (written - begin),
+                records * TimeUnit.SECONDS.toNanos(1) / (replayed - written));
+    }
+
+    private RentalJournal open() throws IOException {
+        return RentalJournal.open(directory, SEGMENT_SIZE, Duration.ofMillis(5));
+    }
+
+    private static List<String> times(List<Rental> rentals) {
+        return rentals.stream().map(rental -> rental.getFrom() + "-" + rental.getTo()).sorted().toList();
+    }
+}
@@ -0,0 +1,141 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationFrontendTest {
+
+    private final LocalDateTime from = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final LocalDateTime to = from.plusMinutes(30);
+
+    @Test
+    void testConcurrentReservationsGetDistinctPEVs() {
+        InMemoryReservationService service = new InMemoryReservationService();
+        for (int i = 0; i < 20; i++) {
+            service.addPEV(new EBike(80, "M-" + i));
+        }
+        List<CompletableFuture<ReservationResult>> calls = new ArrayList<>();
+        try (ReservationFrontend frontend = new ReservationFrontend(service)) {
+            for (int i = 0; i < 50; i++) {
+                calls.add(frontend.reserve(new Rider("Rider " + i, 27, true, null), from, to));
+            }
+
+            Set<PEV> reserved = new HashSet<>();
+            for (CompletableFuture<ReservationResult> call : calls) {
+                ReservationResult result = call.join();
+                if (result.isReserved()) {
+                    assertTrue(reserved.add(result.getPEV()));
+                } else {
+                    assertEquals(NoPEVAvailableException.MESSAGE, result.getFailure());
+                }
+            }
+            assertEquals(20, reserved.size());
+            assertEquals(50, frontend.getLatencies().getCount());
+        }
+    }
+
+    @Test
+    void testAdmissionLimitsConcurrentCalls() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ReservationService slowService = (start, end) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return new HashSet<>(Set.of(new EBike(80, "M-1")));
+        };
+        List<CompletableFuture<ReservationResult>> calls = new ArrayList<>();
+        try (ReservationFrontend frontend = new ReservationFrontend(slowService, new FirstFoundAssignmentStrategy(),
+                Executors.newFixedThreadPool(16), 2, Duration.ofMillis(50))) {
+            for (int i = 0; i < 16; i++) {
+                calls.add(frontend.reserve(new Rider("Rider " + i, 27, true, null), from, to));
+            }
+
+            int busy = 0;
+            for (CompletableFuture<ReservationResult> call : calls) {
+                if (ReservationFrontend.BUSY.equals(call.join().getFailure())) {
+                    busy++;
+                }
+            }
+            assertTrue(maxRunning.get() <= 2);
+            assertTrue(busy > 0);
+            assertEquals(16, frontend.getLatencies().getCount());
+        }
+    }
+
+    /*
+     * Queues five calls behind a single thread and expects the last one to
+     * be recorded with the time it waited for the four calls before it.
+     */
+    @Test
+    void testLatencyIncludesWaitForThread() {
+        ReservationService slowService = (start, end) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new HashSet<>(Set.of(new EBike(80, "M-1")));
+        };
+        List<CompletableFuture<ReservationResult>> calls = new ArrayList<>();
+        try (ReservationFrontend frontend = new ReservationFrontend(slowService, new FirstFoundAssignmentStrategy(),
+                Executors.newSingleThreadExecutor(), 1, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 5; i++) {
+                calls.add(frontend.reserve(new Rider("Rider " + i, 27, true, null), from, to));
+            }
+            for (CompletableFuture<ReservationResult> call : calls) {
+                call.join();
+            }
+            assertEquals(5, frontend.getLatencies().getCount());
+            assertTrue(frontend.getLatencies().getPercentile(100) >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    void testRejectedCallsFailAsBusy() {
+        ReservationService slowService = (start, end) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new HashSet<>(Set.of(new EBike(80, "M-1")));
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1));
+        List<CompletableFuture<ReservationResult>> calls = new ArrayList<>();
+        try (ReservationFrontend frontend = new ReservationFrontend(slowService, new FirstFoundAssignmentStrategy(),
+                executor, 1, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 10; i++) {
+                calls.add(frontend.reserve(new Rider("Rider " + i, 27, true, null), from, to));
+            }
+
+            int busy = 0;
+            for (CompletableFuture<ReservationResult> call : calls) {
+                if (ReservationFrontend.BUSY.equals(call.join().getFailure())) {
+                    busy++;
+                }
+            }
+            assertEquals(8, busy);
+            assertEquals(10, frontend.getLatencies().getCount());
+        }
+    }
+}
@@ -7,6 +7,7 @@
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -132,4 +133,54 @@ void testReserveFittingPEVsReturnsRentedPEV() {
         assertEquals(pevArgumentCaptor.getValue(), fittingPEV);
 
     }
+
+    /*
+     * Three riders request overlapping time frames while only two fitting
+     * PEVs exist. The batch must hand out distinct PEVs and report the third
+     * request as failed instead of throwing.
+     */
+    @Test
+    void testReserveFittingPEVsAssignsDistinctPEVsToOverlappingRequests() {
+        InMemoryReservationService service = new InMemoryReservationService();
+        service.addPEV(new EBike(80, "M-1"));
+        service.addPEV(new EBike(80, "M-2"));
+        service.addPEV(new EMoped(80, "M-3"));
+        ReservationManager reservationManager = new ReservationManager(null, service);
+        List<ReservationRequest> requests = List.of(
+                new ReservationRequest(new Rider("A", 20, true, null), from, to),
+                new ReservationRequest(new Rider("B", 20, true, null), from.minusMinutes(1), to),
+                new ReservationRequest(new Rider("C", 20, true, null), from, to.plusMinutes(1)));
+
+        List<ReservationResult> results = reservationManager.reserveFittingPEVs(requests);
+
+        assertEquals(3, results.size());
+        Set<PEV> reserved = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            assertSame(requests.get(i), results.get(i).getRequest());
+            if (results.get(i).isReserved()) {
+                assertTrue(reserved.add(results.get(i).getPEV()));
+                assertTrue(results.get(i).getPEV() instanceof EBike);
+            } else {
+                assertNotNull(results.get(i).getFailure());
+            }
+        }
+        assertEquals(2, reserved.size());
+    }
+
+    @Test
+    void testReserveFittingPEVsReusesPEVForSeparateTimeFrames() {
+        InMemoryReservationService service = new InMemoryReservationService();
+        PEV pev = new EBike(80, "M-1");
+        service.addPEV(pev);
+        ReservationManager reservationManager = new ReservationManager(null, service);
+        Rider rider = new Rider("A", 20, true, null);
+
+        List<ReservationResult> results = reservationManager.reserveFittingPEVs(List.of(
+                new ReservationRequest(rider, from.plusMinutes(10), to.plusMinutes(10)),
+                new ReservationRequest(rider, from, to)));
+
+        assertSame(pev, results.get(0).getPEV());
+        assertSame(pev, results.get(1).getPEV());
+        assertEquals(2, rider.getRentals().size());
+    }
 }
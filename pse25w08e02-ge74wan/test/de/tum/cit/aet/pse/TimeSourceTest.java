@@ -0,0 +1,76 @@
+package de.tum.cit.aet.pse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSourceTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2020, 10, 10, 10, 0);
+    private final SimulatedTimeSource timeSource = new SimulatedTimeSource(start);
+
+    @Test
+    void testRentalStartsAroundItsBeginning() {
+        Rider rider = new Rider("Caio", 27, true, null);
+        Rental rental = new EBike(80, "M-1").rent(start.plusMinutes(5), start.plusMinutes(30), rider);
+
+        assertThrows(IllegalStateException.class, () -> rental.start(timeSource));
+        timeSource.advance(Duration.ofMinutes(4).plusSeconds(30));
+        rental.start(timeSource);
+        assertSame(rental.getRentedPEV(), rider.getPEV());
+    }
+
+    @Test
+    void testSearchCriteriaExpireWithSimulatedTime() {
+        Rider rider = new Rider("Caio", 27, true, new DriversLicense(start.plusDays(1), "Caio"));
+        rider.setTimeSource(timeSource);
+        PEV eMoped = new EMoped(80, "M-1");
+        assertTrue(rider.getSearchCriteria().isPEVAllowed(eMoped));
+
+        timeSource.advance(Duration.ofDays(1));
+        assertFalse(rider.getSearchCriteria().isPEVAllowed(eMoped));
+        rider.receiveDriversLicense();
+        assertEquals(start.plusDays(1).plusYears(10), rider.getDriversLicense().getValidUntil());
+    }
+
+    /*
+     * Replays a day of rides on one PEV in steps of one minute, which takes
+     * far less than a day.
+     */
+    @Test
+    void testReplayDayOfTraffic() {
+        Rider rider = new Rider("Caio", 27, true, null);
+        PEV pev = new EKickscooter(80, "M-1");
+        long seconds = 0;
+        for (LocalDateTime from = start; from.isBefore(start.plusDays(1)); from = from.plusMinutes(20)) {
+            Rental rental = rider.rent(pev, from, from.plusMinutes(15));
+            timeSource.setTime(from);
+            rental.start(timeSource);
+            timeSource.advance(Duration.ofMinutes(15));
+            rental.stop();
+            seconds += rental.timeElapsed();
+        }
+        assertEquals(72 * 15 * 60, seconds);
+        assertEquals(start.plusDays(1).minusMinutes(5), timeSource.now());
+    }
+
+    @Test
+    void testSystemTimeSourceReadsLocalTime() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(1_000_000);
+        LocalDateTime now = TimeSource.system().now();
+        assertFalse(now.isBefore(before));
+        assertFalse(now.isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void testCachedTimeSourceFollowsSystemTime() throws InterruptedException {
+        try (CachedTimeSource cached = new CachedTimeSource(TimeSource.system(), Duration.ofMillis(1))) {
+            Thread.sleep(20);
+            long difference = TimeSource.system().localEpochMillis() - cached.localEpochMillis();
+            assertTrue(difference >= 0 && difference < 1_000);
+        }
+    }
+}